@@ -0,0 +1,75 @@
+package mods.battlegear2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.item.ItemStack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import mods.battlegear2.api.core.BattlegearUtils;
+import mods.battlegear2.api.core.WieldClassCache;
+import mods.battlegear2.api.weapons.WeaponRegistry;
+
+/**
+ * Wielding checks done for each stack on every swing, swap and slot change
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassificationBenchmark {
+
+    private ItemStack[] stacks;
+
+    @Setup
+    public void setup() {
+        Fixtures.init();
+        stacks = Fixtures.stacks();
+    }
+
+    @Benchmark
+    public void cachedClassification(Blackhole blackhole) {
+        for (ItemStack stack : stacks) {
+            blackhole.consume(BattlegearUtils.getClassification(stack));
+        }
+    }
+
+    @Benchmark
+    public void uncachedClassification(Blackhole blackhole) {
+        WieldClassCache.invalidate();
+        for (ItemStack stack : stacks) {
+            blackhole.consume(BattlegearUtils.getClassification(stack));
+        }
+    }
+
+    @Benchmark
+    public void handChecks(Blackhole blackhole) {
+        for (ItemStack main : stacks) {
+            for (ItemStack off : stacks) {
+                blackhole.consume(BattlegearUtils.isMainHand(main, off, null));
+            }
+            blackhole.consume(BattlegearUtils.isOffHand(main, null));
+        }
+    }
+
+    @Benchmark
+    public void registryLookups(Blackhole blackhole) {
+        for (ItemStack stack : stacks) {
+            blackhole.consume(WeaponRegistry.isWeapon(stack));
+            blackhole.consume(WeaponRegistry.isMainHand(stack));
+            blackhole.consume(WeaponRegistry.isOffHand(stack));
+        }
+    }
+}
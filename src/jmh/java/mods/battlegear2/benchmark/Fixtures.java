@@ -0,0 +1,37 @@
+package mods.battlegear2.benchmark;
+
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+
+/**
+ * Headless game state shared by the benchmarks: the vanilla registries, without client nor world
+ */
+public final class Fixtures {
+
+    static {
+        Bootstrap.func_151354_b();
+    }
+
+    private Fixtures() {}
+
+    /**
+     * Ensure the vanilla blocks and items are registered
+     */
+    public static void init() {}
+
+    /**
+     * A variety of stacks, from plain items to enchanted and named weapons
+     */
+    public static ItemStack[] stacks() {
+        ItemStack sword = new ItemStack(Items.diamond_sword);
+        sword.addEnchantment(Enchantment.sharpness, 3);
+        sword.setStackDisplayName("Benchmark");
+        ItemStack bow = new ItemStack(Items.bow);
+        bow.addEnchantment(Enchantment.power, 2);
+        return new ItemStack[] { new ItemStack(Items.iron_sword), sword, new ItemStack(Items.iron_axe), bow,
+                new ItemStack(Items.arrow, 64), new ItemStack(Items.apple, 12), new ItemStack(Items.stick, 3),
+                new ItemStack(Items.potionitem, 1, 8197), new ItemStack(Items.shears), new ItemStack(Items.flint) };
+    }
+}
@@ -0,0 +1,92 @@
+package mods.battlegear2.benchmark;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mods.battlegear2.api.heraldry.Crest;
+import mods.battlegear2.api.heraldry.HeraldryData;
+import mods.battlegear2.api.heraldry.PatternStore;
+
+/**
+ * Heraldry decoding and the pixel blending done to build each crest texture
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeraldryBenchmark {
+
+    private static final String PATTERNS = "/assets/battlegear2/textures/heraldry/Patterns-small.png";
+    private int[][][][] pattern;
+    private HeraldryData data;
+    private byte[] bytes;
+    private int[] pixels;
+
+    @Setup
+    public void setup() throws IOException {
+        InputStream stream = PatternStore.class.getResourceAsStream(PATTERNS);
+        try {
+            pattern = new PatternStore(8, 4).buildPatternFrom(stream);
+        } finally {
+            stream.close();
+        }
+        List<Crest> crests = new ArrayList<Crest>();
+        for (int i = 0; i < HeraldryData.MAX_CRESTS; i++) {
+            crests.add(new Crest(new int[] { Color.RED.getRGB(), Color.WHITE.getRGB() }, i, (byte) 2, (byte) i,
+                    (byte) (2 * i)));
+        }
+        data = new HeraldryData(0, (byte) 5, Color.YELLOW.getRGB(), Color.BLUE.getRGB(), Color.BLACK.getRGB(),
+                crests, new byte[6]);
+        bytes = data.getByteArray();
+        pixels = new int[pattern[0][0].length * pattern[0][0][0].length];
+    }
+
+    @Benchmark
+    public HeraldryData parse() {
+        return new HeraldryData(bytes);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return data.clone().getByteArray();
+    }
+
+    /**
+     * The blending loop of {@link mods.battlegear2.api.heraldry.RefreshableTexture}, into a plain array
+     */
+    @Benchmark
+    public int[] blendPattern() {
+        int width = pattern[data.getPattern()][0].length;
+        int height = pattern[data.getPattern()][0][0].length;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                pixels[x + y * width] = PatternStore.getBlendedSmallPixel(
+                        pattern,
+                        data.getPattern(),
+                        x,
+                        y,
+                        data.getColour(0),
+                        data.getColour(1),
+                        data.getColour(2));
+            }
+        }
+        return pixels;
+    }
+}
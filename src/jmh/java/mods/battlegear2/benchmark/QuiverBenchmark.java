@@ -0,0 +1,68 @@
+package mods.battlegear2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import mods.battlegear2.items.ItemQuiver;
+
+/**
+ * Quiver slot access, as done when rendering the held bow and each time an arrow is fired
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuiverBenchmark {
+
+    private ItemQuiver quiver;
+    private ItemStack container;
+    private int count;
+
+    @Setup
+    public void setup() {
+        Fixtures.init();
+        quiver = new ItemQuiver();
+        container = new ItemStack(quiver);
+        for (int i = 0; i < quiver.getSlotCount(container); i++) {
+            quiver.setStackInSlot(container, i, new ItemStack(Items.arrow, 64));
+        }
+    }
+
+    @Benchmark
+    public void readSlots(Blackhole blackhole) {
+        for (int i = 0; i < quiver.getSlotCount(container); i++) {
+            blackhole.consume(quiver.getStackInSlot(container, i));
+        }
+    }
+
+    @Benchmark
+    public void fireArrow() {
+        int slot = quiver.getSelectedSlot(container);
+        ItemStack stack = quiver.getStackInSlot(container, slot);
+        count = count > 1 ? count - 1 : 64;
+        stack.stackSize = count;
+        quiver.setStackInSlot(container, slot, stack);
+    }
+
+    @Benchmark
+    public ItemStack refill() {
+        quiver.setStackInSlot(container, 0, null);
+        return quiver.addArrows(container, new ItemStack(Items.arrow, 64));
+    }
+}
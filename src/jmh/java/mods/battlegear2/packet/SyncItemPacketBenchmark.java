@@ -0,0 +1,81 @@
+package mods.battlegear2.packet;
+
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.inventory.InventoryBasic;
+import net.minecraft.item.ItemStack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import mods.battlegear2.api.core.IInventoryPlayerBattle;
+import mods.battlegear2.benchmark.Fixtures;
+
+/**
+ * Encoding and decoding of the battle inventory stacks carried by {@link BattlegearSyncItemPacket}, without the
+ * player lookup which needs a world
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyncItemPacketBenchmark {
+
+    /**
+     * A full snapshot, or a single slot update
+     */
+    @Param({ "full", "single" })
+    public String update;
+    private int slots;
+    private InventoryBasic inventory;
+    private ItemStack current;
+    private ByteBuf out;
+    private ByteBuf encoded;
+    private ItemStack[] stacks;
+
+    @Setup
+    public void setup() {
+        Fixtures.init();
+        ItemStack[] fixtures = Fixtures.stacks();
+        inventory = new InventoryBasic(
+                "battle",
+                false,
+                IInventoryPlayerBattle.OFFSET + IInventoryPlayerBattle.EXTRA_INV_SIZE);
+        for (int i = 0; i < IInventoryPlayerBattle.EXTRA_INV_SIZE; i++) {
+            inventory.setInventorySlotContents(IInventoryPlayerBattle.OFFSET + i, fixtures[i % fixtures.length]);
+        }
+        current = fixtures[1];
+        slots = "full".equals(update) ? BattlegearSyncItemPacket.FULL : 1;
+        out = Unpooled.buffer();
+        encoded = Unpooled.buffer();
+        BattlegearSyncItemPacket.writeStacks(encoded, slots, current, inventory);
+        stacks = new ItemStack[IInventoryPlayerBattle.EXTRA_INV_SIZE + 1];
+    }
+
+    @Benchmark
+    public ByteBuf encode() {
+        out.clear();
+        BattlegearSyncItemPacket.writeStacks(out, slots, current, inventory);
+        return out;
+    }
+
+    @Benchmark
+    public ItemStack[] decode() {
+        encoded.readerIndex(0);
+        BattlegearSyncItemPacket.readStacks(encoded, stacks);
+        return stacks;
+    }
+}
@@ -1,5 +1,6 @@
 package mods.battlegear2;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import net.minecraft.entity.projectile.EntityArrow;
@@ -9,6 +10,7 @@ import net.minecraft.item.ItemStack;
 import net.minecraftforge.common.config.Configuration;
 import net.minecraftforge.common.util.EnumHelper;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.Logger;
 
 import cpw.mods.fml.common.FMLCommonHandler;
@@ -26,6 +28,8 @@ import cpw.mods.fml.common.event.FMLServerStartingEvent;
 import cpw.mods.fml.common.network.NetworkCheckHandler;
 import cpw.mods.fml.common.network.NetworkRegistry;
 import cpw.mods.fml.relauncher.Side;
+import mods.battlegear2.api.StackHolder;
+import mods.battlegear2.api.core.ItemCapabilities;
 import mods.battlegear2.api.quiver.IArrowFireHandler;
 import mods.battlegear2.api.quiver.IQuiverSelection;
 import mods.battlegear2.api.quiver.QuiverArrowRegistry;
@@ -33,6 +37,8 @@ import mods.battlegear2.api.weapons.WeaponRegistry;
 import mods.battlegear2.gui.BattlegearGUIHandeler;
 import mods.battlegear2.packet.BattlegearPacketHandeler;
 import mods.battlegear2.utils.BattlegearConfig;
+import mods.battlegear2.utils.ClassificationFile;
+import mods.battlegear2.utils.WieldOverrides;
 
 @Mod(
         acceptedMinecraftVersions = "[1.7.10]",
@@ -84,6 +90,11 @@ public class Battlegear {
 
     @Mod.EventHandler
     public void postInit(FMLPostInitializationEvent event) {
+        ClassificationFile classification = new ClassificationFile(Loader.instance().getConfigDir());
+        classification.load();
+        ItemCapabilities.computeAll();
+        classification.save();
+        WeaponRegistry.markDefaults();
         if (Loader.isModLoaded("TConstruct")) { // Tinker's Construct support for tabs in main inventory
             proxy.tryUseTConstruct();
         }
@@ -95,19 +106,27 @@ public class Battlegear {
     @Mod.EventHandler
     public void serverStart(FMLServerStartingEvent event) {
         event.registerServerCommand(CommandWeaponWield.INSTANCE);
+        event.registerServerCommand(CommandNetworkStats.INSTANCE);
+        packetHandler.onServerStarting(event.getServer().getMaxPlayers());
+        WieldOverrides.get().apply();
     }
 
     @SuppressWarnings("unchecked")
     @Mod.EventHandler
     public void onMessage(IMCEvent event) {
         boolean success;
+        // Registered at once after all messages, to build the registry index a single time
+        Map<StackHolder, Pair<WeaponRegistry.Wield, Boolean>> weapons;
+        weapons = new HashMap<StackHolder, Pair<WeaponRegistry.Wield, Boolean>>();
         for (IMCMessage message : event.getMessages()) {
             if (message != null) {
                 success = false;
                 if (message.isItemStackMessage()) {
                     ItemStack stack = message.getItemStackValue();
-                    if (stack != null) {
-                        if (WeaponRegistry.setWeapon(message.key, stack)) {
+                    WeaponRegistry.Wield wield = WeaponRegistry.getWield(message.key);
+                    if (stack != null && stack.getItem() != null) {
+                        if (wield != null) {
+                            weapons.put(new StackHolder(stack), Pair.of(wield, false));
                             success = true;
                         } else if (message.key.startsWith("Arrow")) {
                             Class<?> clazz = null;
@@ -123,7 +142,13 @@ public class Battlegear {
                                 // use EntityArrow, at
                                 // least as a
                                 // superclass
-                                QuiverArrowRegistry.addArrowToRegistry(stack, (Class<? extends EntityArrow>) clazz);
+                                try {
+                                    QuiverArrowRegistry
+                                            .addArrowToRegistry(stack, (Class<? extends EntityArrow>) clazz);
+                                } catch (IllegalArgumentException e) {
+                                    logger.warn(e.getMessage() + ", arrow registered with no default handling");
+                                    QuiverArrowRegistry.addArrowToRegistry(stack);
+                                }
                                 success = true;
                             } else { // Register with no default handling
                                 QuiverArrowRegistry.addArrowToRegistry(stack);
@@ -163,6 +188,7 @@ public class Battlegear {
                 }
             }
         }
+        WeaponRegistry.registerAll(weapons);
     }
 
     @Mod.EventHandler
@@ -1,22 +1,36 @@
 package mods.battlegear2;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.entity.EntityTrackerEntry;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.item.ItemStack;
 import net.minecraft.world.WorldServer;
 
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 import cpw.mods.fml.common.gameevent.TickEvent;
+import cpw.mods.fml.relauncher.Side;
 import mods.battlegear2.api.core.IBattlePlayer;
 import mods.battlegear2.api.core.IInventoryPlayerBattle;
+import mods.battlegear2.api.core.ItemCapabilities;
 import mods.battlegear2.api.quiver.QuiverArrowRegistry;
 import mods.battlegear2.api.shield.IShield;
+import mods.battlegear2.packet.AbstractMBPacket;
 import mods.battlegear2.packet.BattlegearSyncItemPacket;
+import mods.battlegear2.packet.InventoryDigestPacket;
 import mods.battlegear2.utils.BattlegearConfig;
 
 public final class BattlegearTickHandeler {
 
     public static final BattlegearTickHandeler INSTANCE = new BattlegearTickHandeler();
 
+    /**
+     * Weapon slots changed while out of sight of distant observers, by player
+     */
+    private final Map<EntityPlayer, Integer> pendingSheathed = new WeakHashMap<EntityPlayer, Integer>();
+
     private BattlegearTickHandeler() {}
 
     @SubscribeEvent
@@ -28,34 +42,112 @@ public final class BattlegearTickHandeler {
         }
     }
 
+    /**
+     * Process the packets received since the previous tick, then send the packets queued during the world ticks
+     */
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            Battlegear.packetHandler.processPackets(Side.SERVER);
+        } else {
+            Battlegear.packetHandler.flushQueue();
+        }
+    }
+
     public void tickStart(EntityPlayer entityPlayer) {
 
         if (!entityPlayer.worldObj.isRemote && entityPlayer.worldObj instanceof WorldServer) {
 
-            if (((IInventoryPlayerBattle) entityPlayer.inventory).battlegear2$isDirty()) {
-                ((WorldServer) entityPlayer.worldObj).getEntityTracker()
-                        .func_151248_b(entityPlayer, new BattlegearSyncItemPacket(entityPlayer).generatePacket());
+            IInventoryPlayerBattle inventory = (IInventoryPlayerBattle) entityPlayer.inventory;
+            boolean heartbeat = entityPlayer.ticksExisted % BattlegearConfig.updateRate == 0;
+            if (inventory.battlegear2$isDirty()) {
+                int dirty = inventory.battlegear2$getDirtySlots();
+                Battlegear.packetHandler
+                        .queuePacket(new BattlegearSyncItemPacket(entityPlayer, dirty), (EntityPlayerMP) entityPlayer);
+                syncTrackers(entityPlayer, dirty, heartbeat, false);
                 ((IBattlePlayer) entityPlayer).battlegear2$setSpecialActionTimer(0);
-                ((IInventoryPlayerBattle) entityPlayer.inventory).battlegear2$setDirty(entityPlayer.ticksExisted < 10);
+                inventory.battlegear2$setDirty(entityPlayer.ticksExisted < 10);
             }
-            // Force update every 3 seconds
-            else if (((IBattlePlayer) entityPlayer).battlegear2$isBattlemode()
-                    && entityPlayer.ticksExisted % BattlegearConfig.updateRate == 0
+            // Let clients check their copy of the battle inventory, they ask for an update on mismatch
+            else if (heartbeat && ((IBattlePlayer) entityPlayer).battlegear2$isBattlemode()
                     && !entityPlayer.isUsingItem()) {
-                        ((WorldServer) entityPlayer.worldObj).getEntityTracker().func_151248_b(
-                                entityPlayer,
-                                new BattlegearSyncItemPacket(entityPlayer).generatePacket());
+                        Battlegear.packetHandler.queuePacket(
+                                new InventoryDigestPacket(entityPlayer, IInventoryPlayerBattle.ALL_EXTRA_SLOTS),
+                                (EntityPlayerMP) entityPlayer);
+                        syncTrackers(entityPlayer, 0, true, true);
+                    } else if (heartbeat || pendingSheathed.containsKey(entityPlayer)) {
+                        syncTrackers(entityPlayer, 0, heartbeat, false);
                     }
         }
     }
 
+    /**
+     * Send the changed weapon slots to the players tracking the given one. Observers within
+     * {@link BattlegearConfig#observerSyncDistance} get them all right away, further ones only get the held slots, the
+     * sheathed ones waiting for the next heartbeat. The waiting slots are then sent to near observers too, as they may
+     * have been far when the slots changed.
+     *
+     * @param dirty     the changed extra slots
+     * @param heartbeat if the sheathed slots waiting for distant observers should be sent
+     * @param digest    if a digest of the weapon slots should follow, for observers to check their copy
+     */
+    private void syncTrackers(EntityPlayer entityPlayer, int dirty, boolean heartbeat, boolean digest) {
+        EntityTrackerEntry entry = (EntityTrackerEntry) ((WorldServer) entityPlayer.worldObj).getEntityTracker()
+                .trackedEntityIDs.lookup(entityPlayer.getEntityId());
+        if (entry == null || entry.trackingPlayers.isEmpty()) {
+            pendingSheathed.remove(entityPlayer);
+            return;
+        }
+        Integer pending = pendingSheathed.get(entityPlayer);
+        int waiting = (pending != null ? pending : 0) | dirty & IInventoryPlayerBattle.WEAPON_SLOTS;
+        int far = heartbeat ? waiting : waiting & getHeldSlots(entityPlayer);
+        if ((waiting & ~far) != 0) pendingSheathed.put(entityPlayer, waiting & ~far);
+        else pendingSheathed.remove(entityPlayer);
+        int near = dirty & BattlegearSyncItemPacket.OBSERVED | far;
+        double distance = BattlegearConfig.observerSyncDistance * BattlegearConfig.observerSyncDistance;
+        AbstractMBPacket nearPacket = null, farPacket = null, digestPacket = null;
+        for (Object tracking : entry.trackingPlayers) {
+            EntityPlayerMP observer = (EntityPlayerMP) tracking;
+            if (observer.getDistanceSqToEntity(entityPlayer) <= distance) {
+                if (near != 0) {
+                    if (nearPacket == null) {
+                        nearPacket = new BattlegearSyncItemPacket(entityPlayer, near);
+                    }
+                    Battlegear.packetHandler.queuePacket(nearPacket, observer);
+                }
+            } else if (far != 0) {
+                if (farPacket == null) {
+                    farPacket = new BattlegearSyncItemPacket(entityPlayer, far);
+                }
+                Battlegear.packetHandler.queuePacket(farPacket, observer);
+            }
+            if (digest) {
+                if (digestPacket == null) {
+                    digestPacket = new InventoryDigestPacket(entityPlayer, IInventoryPlayerBattle.WEAPON_SLOTS);
+                }
+                Battlegear.packetHandler.queuePacket(digestPacket, observer);
+            }
+        }
+    }
+
+    /**
+     * @return the extra slots of the weapon set in use, or none if not in battlemode
+     */
+    private static int getHeldSlots(EntityPlayer entityPlayer) {
+        int set = entityPlayer.inventory.currentItem - IInventoryPlayerBattle.OFFSET;
+        if (set < 0 || set >= IInventoryPlayerBattle.WEAPON_SETS) {
+            return 0;
+        }
+        return 1 << set | 1 << (set + IInventoryPlayerBattle.WEAPON_SETS);
+    }
+
     public void tickEnd(EntityPlayer entityPlayer) {
         int timer = ((IBattlePlayer) entityPlayer).battlegear2$getSpecialActionTimer();
         if (timer > 0) {
             ((IBattlePlayer) entityPlayer).battlegear2$setSpecialActionTimer(timer - 1);
             int targetTime = -1;
             ItemStack offhand = ((IInventoryPlayerBattle) entityPlayer.inventory).battlegear2$getCurrentOffhandWeapon();
-            if (offhand != null && offhand.getItem() instanceof IShield) {
+            if (offhand != null && ItemCapabilities.has(offhand.getItem(), ItemCapabilities.SHIELD)) {
                 targetTime = ((IShield) offhand.getItem()).getBashTimer(offhand) / 2;
             } else {
                 offhand = QuiverArrowRegistry.getArrowContainer(entityPlayer);
@@ -8,7 +8,6 @@ import net.minecraft.entity.IProjectile;
 import net.minecraft.entity.item.EntityItem;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
-import net.minecraft.item.ItemBlock;
 import net.minecraft.item.ItemStack;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraftforge.common.MinecraftForge;
@@ -20,6 +19,7 @@ import net.minecraftforge.event.entity.player.AttackEntityEvent;
 import net.minecraftforge.event.entity.player.EntityInteractEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
+import net.minecraftforge.oredict.OreDictionary;
 
 import cpw.mods.fml.common.eventhandler.Event;
 import cpw.mods.fml.common.eventhandler.EventPriority;
@@ -33,9 +33,10 @@ import mods.battlegear2.api.PlayerEventChild;
 import mods.battlegear2.api.core.BattlegearUtils;
 import mods.battlegear2.api.core.IBattlePlayer;
 import mods.battlegear2.api.core.IInventoryPlayerBattle;
+import mods.battlegear2.api.core.ItemCapabilities;
+import mods.battlegear2.api.core.WieldClassCache;
 import mods.battlegear2.api.heraldry.IFlagHolder;
 import mods.battlegear2.api.heraldry.IHeraldryItem;
-import mods.battlegear2.api.quiver.IArrowContainer2;
 import mods.battlegear2.api.shield.IArrowCatcher;
 import mods.battlegear2.api.shield.IShield;
 import mods.battlegear2.api.weapons.IExtendedReachWeapon;
@@ -85,9 +86,10 @@ public final class BattlemodeHookContainerClass {
         }
         ItemStack mainhand = event.entityPlayer.getCurrentEquippedItem();
         float reachMod = 0;
+        int capabilities = mainhand != null ? ItemCapabilities.get(mainhand.getItem()) : 0;
         if (mainhand == null) reachMod = -2.2F; // Reduce bare hands range
-        else if (mainhand.getItem() instanceof ItemBlock) reachMod = -2.1F; // Reduce block in hands range too
-        else if (mainhand.getItem() instanceof IExtendedReachWeapon)
+        else if ((capabilities & ItemCapabilities.BLOCK) != 0) reachMod = -2.1F; // Reduce block in hands range too
+        else if ((capabilities & ItemCapabilities.EXTENDED_REACH) != 0)
             reachMod = ((IExtendedReachWeapon) mainhand.getItem()).getReachModifierInBlocks(mainhand);
         if (reachMod < 0 && reachMod + (event.entityPlayer.capabilities.isCreativeMode ? 5.0F : 4.5F)
                 < event.entityPlayer.getDistanceToEntity(event.target)) {
@@ -104,7 +106,8 @@ public final class BattlemodeHookContainerClass {
         } else if (((IBattlePlayer) event.entityPlayer).battlegear2$isBattlemode()) {
             if (event.action == PlayerInteractEvent.Action.LEFT_CLICK_BLOCK) { // Left click
                 ItemStack mainHandItem = event.entityPlayer.getCurrentEquippedItem();
-                if (mainHandItem != null && mainHandItem.getItem() instanceof IHandListener) {
+                if (mainHandItem != null
+                        && ItemCapabilities.has(mainHandItem.getItem(), ItemCapabilities.HAND_LISTENER)) {
                     PlayerInteractEvent copy = copy(event);
                     copy.useItem = Event.Result.DENY;
                     Event.Result swing = ((IHandListener) mainHandItem.getItem()).onClickBlock(
@@ -249,22 +252,23 @@ public final class BattlemodeHookContainerClass {
     @SubscribeEvent(priority = EventPriority.HIGHEST)
     public void onOffhandAttack(PlayerEventChild.OffhandAttackEvent event) {
         if (event.offHand != null) {
-            if (event.offHand.getItem() instanceof IOffhandDual) {
+            int capabilities = ItemCapabilities.get(event.offHand.getItem());
+            if ((capabilities & ItemCapabilities.OFFHAND_DUAL) != 0) {
                 event.swingOffhand = ((IOffhandDual) event.offHand.getItem())
                         .offhandAttackEntity(event, event.mainHand, event.offHand);
-            } else if (event.offHand.getItem() instanceof IOffhandListener) {
+            } else if ((capabilities & ItemCapabilities.OFFHAND_LISTENER) != 0) {
                 ((IOffhandListener) event.offHand.getItem()).onAttackEntity(event, true);
-            } else if (event.offHand.getItem() instanceof IShield
+            } else if ((capabilities & ItemCapabilities.SHIELD) != 0
                     || BattlegearUtils.usagePriorAttack(event.offHand, event.getPlayer(), true)) {
                         event.swingOffhand = false;
                         event.shouldAttack = false;
                     } else
-                if (event.offHand.getItem() instanceof IArrowContainer2) {
+                if ((capabilities & ItemCapabilities.ARROW_CONTAINER) != 0) {
                     event.setCanceled(true);
                 }
         }
         if (event.mainHand != null) {
-            if (event.mainHand.getItem() instanceof IOffhandListener) {
+            if (ItemCapabilities.has(event.mainHand.getItem(), ItemCapabilities.OFFHAND_LISTENER)) {
                 ((IOffhandListener) event.mainHand.getItem()).onAttackEntity(event, false);
             } else if (event.shouldAttack && !event.isCanceled()
                     && BattlegearUtils.usagePriorAttack(event.mainHand, event.getPlayer(), false)) {
@@ -278,13 +282,14 @@ public final class BattlemodeHookContainerClass {
     public void onOffhandUse(PlayerEventChild.UseOffhandItemEvent offhandItemEvent) {
         if (offhandItemEvent.offhand != null) {
             ItemStack offhandItem = offhandItemEvent.offhand;
+            int capabilities = ItemCapabilities.get(offhandItem.getItem());
             if (!BattlegearUtils.usagePriorAttack(offhandItem, offhandItemEvent.getPlayer(), true)) {
                 offhandItemEvent.event.useItem = Event.Result.DENY;
                 if (offhandItemEvent.onBlock()) {
                     offhandItemEvent.event.useBlock = Event.Result.DENY;
                 }
             }
-            if (offhandItem.getItem() instanceof IOffhandDual) {
+            if ((capabilities & ItemCapabilities.OFFHAND_DUAL) != 0) {
                 if (offhandItemEvent.onBlock()) {
                     offhandItemEvent.swingOffhand = ((IOffhandDual) offhandItem.getItem()).offhandClickBlock(
                             copy(offhandItemEvent.event),
@@ -296,19 +301,19 @@ public final class BattlemodeHookContainerClass {
                             offhandItemEvent.getPlayer().getCurrentEquippedItem(),
                             offhandItem);
                 }
-            } else if (offhandItem.getItem() instanceof IShield || offhandItem.getItem() instanceof IArrowContainer2
+            } else if ((capabilities & (ItemCapabilities.SHIELD | ItemCapabilities.ARROW_CONTAINER)) != 0
                     || BattlegearUtils.usagePriorAttack(offhandItem, offhandItemEvent.getPlayer(), true)) {
                         offhandItemEvent.swingOffhand = false;
                     }
             Event.Result cancel = offhandItemEvent.swingOffhand ? Event.Result.DEFAULT : Event.Result.ALLOW;
-            if (offhandItem.getItem() instanceof IHandListener) {
+            if ((capabilities & ItemCapabilities.HAND_LISTENER) != 0) {
                 if (offhandItemEvent.onBlock()) {
                     cancel = ((IHandListener) offhandItem.getItem()).onClickBlock(
                             offhandItemEvent.event,
                             offhandItemEvent.getPlayer().getCurrentEquippedItem(),
                             offhandItem,
                             true);
-                } else if (offhandItem.getItem() instanceof IOffhandListener) {
+                } else if ((capabilities & ItemCapabilities.OFFHAND_LISTENER) != 0) {
                     cancel = ((IOffhandListener) offhandItem.getItem()).onClickAir(
                             offhandItemEvent.getPlayer(),
                             offhandItemEvent.getPlayer().getCurrentEquippedItem(),
@@ -360,15 +365,13 @@ public final class BattlemodeHookContainerClass {
                         }
 
                         if (blockEvent.performAnimation) {
-                            Battlegear.packetHandler.sendPacketAround(
-                                    player,
-                                    32,
-                                    new BattlegearShieldFlashPacket(player, dmg).generatePacket());
+                            Battlegear.packetHandler
+                                    .queuePacketAround(player, 32, new BattlegearShieldFlashPacket(player, dmg));
                             ((IShield) shield.getItem()).blockAnimation(player, dmg);
                         }
 
                         if (event.source.isProjectile() && event.source.getSourceOfDamage() instanceof IProjectile) {
-                            if (shield.getItem() instanceof IArrowCatcher) {
+                            if (ItemCapabilities.has(shield.getItem(), ItemCapabilities.ARROW_CATCHER)) {
                                 if (((IArrowCatcher) shield.getItem())
                                         .catchArrow(shield, player, (IProjectile) event.source.getSourceOfDamage())) {
                                     ((IInventoryPlayerBattle) player.inventory).battlegear2$setDirty(true);
@@ -460,8 +463,19 @@ public final class BattlemodeHookContainerClass {
     @SubscribeEvent
     public void addTracking(PlayerEvent.StartTracking event) {
         if (event.target instanceof EntityPlayer && !isFake(event.target)) {
-            ((EntityPlayerMP) event.entityPlayer).playerNetServerHandler
-                    .sendPacket(new BattlegearSyncItemPacket((EntityPlayer) event.target).generatePacket());
+            Battlegear.packetHandler.sendPacketToPlayer(
+                    new BattlegearSyncItemPacket((EntityPlayer) event.target, BattlegearSyncItemPacket.OBSERVED)
+                            .generatePacket(),
+                    (EntityPlayerMP) event.entityPlayer);
         }
     }
+
+    /**
+     * Ore names are part of the wield classification, forget the remembered results when they change
+     */
+    @SubscribeEvent
+    public void onOreRegister(OreDictionary.OreRegisterEvent event) {
+        WieldClassCache.invalidate();
+        BattlegearUtils.onOreRegistered(event.Name);
+    }
 }
@@ -7,6 +7,7 @@ import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 import cpw.mods.fml.common.gameevent.PlayerEvent;
 import mods.battlegear2.packet.LoginPacket;
 import mods.battlegear2.recipies.CraftingHandeler;
+import mods.battlegear2.utils.WieldOverrides;
 
 public final class BgPlayerTracker {
 
@@ -19,6 +20,7 @@ public final class BgPlayerTracker {
         if (event.player instanceof EntityPlayerMP) {
             Battlegear.packetHandler
                     .sendPacketToPlayer(new LoginPacket().generatePacket(), (EntityPlayerMP) event.player);
+            WieldOverrides.get().sendTo((EntityPlayerMP) event.player);
         }
     }
 
@@ -16,6 +16,7 @@ import cpw.mods.fml.common.eventhandler.Event.Result;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 import mods.battlegear2.api.PlayerEventChild;
 import mods.battlegear2.api.core.IInventoryPlayerBattle;
+import mods.battlegear2.api.core.ItemCapabilities;
 import mods.battlegear2.api.quiver.IArrowContainer2;
 import mods.battlegear2.api.quiver.IQuiverSelection;
 import mods.battlegear2.api.quiver.ISpecialBow;
@@ -67,7 +68,7 @@ public final class BowHookContainerClass2 {
         // further checks)
         Result canDrawBow = Result.DEFAULT;
         // insert special bow check here:
-        if (event.result.getItem() instanceof ISpecialBow) {
+        if (ItemCapabilities.has(event.result.getItem(), ItemCapabilities.SPECIAL_BOW)) {
             canDrawBow = ((ISpecialBow) event.result.getItem()).canDrawBow(event.result, event.entityPlayer);
         }
         // Special bow did not determine a result, so use standard algorithms instead:
@@ -101,7 +102,7 @@ public final class BowHookContainerClass2 {
      * @return true if the item can give an arrow
      */
     public static boolean isLoadedContainer(ItemStack item, ItemStack bow, EntityPlayer entityPlayer) {
-        if (item != null && item.getItem() instanceof IArrowContainer2) {
+        if (item != null && ItemCapabilities.has(item.getItem(), ItemCapabilities.ARROW_CONTAINER)) {
             int maxSlot = ((IArrowContainer2) item.getItem()).getSlotCount(item);
             for (int i = 0; i < maxSlot; i++) {
                 if (((IArrowContainer2) item.getItem()).hasArrowFor(item, bow, entityPlayer, i)) {
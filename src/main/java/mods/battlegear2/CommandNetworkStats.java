@@ -0,0 +1,187 @@
+package mods.battlegear2;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommand;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.ChatComponentText;
+import net.minecraft.util.ChatComponentTranslation;
+
+import com.google.common.base.Charsets;
+
+import cpw.mods.fml.relauncher.Side;
+import mods.battlegear2.packet.BattlegearPacketHandeler;
+import mods.battlegear2.packet.PacketQueue;
+import mods.battlegear2.packet.PacketStats;
+
+/**
+ * Command that can be used by op to see the network traffic of Battlegear, or dump it to a file
+ */
+public final class CommandNetworkStats extends CommandBase {
+
+    public static final CommandNetworkStats INSTANCE = new CommandNetworkStats();
+    private static final int TOP_PLAYERS = 5;
+
+    private CommandNetworkStats() {}
+
+    /**
+     * Available operations
+     */
+    public final String[] operations = { "report", "players", "dump", "reset" };
+
+    @Override
+    public String getCommandName() {
+        return "bgnetwork";
+    }
+
+    /**
+     * [report|players|dump|reset]
+     */
+    @Override
+    public String getCommandUsage(ICommandSender sender) {
+        return "commands.bgnetwork.usage";
+    }
+
+    @Override
+    public void processCommand(ICommandSender sender, String[] args) {
+        String operation = args.length > 0 ? args[0] : operations[0];
+        PacketStats stats = Battlegear.packetHandler.getStats(Side.SERVER);
+        if (operation.equals(operations[0])) {
+            report(sender, stats);
+        } else if (operation.equals(operations[1])) {
+            sender.addChatMessage(new ChatComponentTranslation("commands.bgnetwork.players", TOP_PLAYERS));
+            for (String name : stats.getTopPlayers(TOP_PLAYERS)) {
+                sender.addChatMessage(
+                        new ChatComponentText(
+                                name + ": in " + stats.getPlayer(name, PacketStats.PACKETS_IN)
+                                        + " ("
+                                        + formatBytes(stats.getPlayer(name, PacketStats.BYTES_IN))
+                                        + "), out "
+                                        + stats.getPlayer(name, PacketStats.PACKETS_OUT)
+                                        + " ("
+                                        + formatBytes(stats.getPlayer(name, PacketStats.BYTES_OUT))
+                                        + ")"));
+            }
+        } else if (operation.equals(operations[2])) {
+            File file = MinecraftServer.getServer().getFile(
+                    "battlegear2-network-" + new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date()) + ".csv");
+            try {
+                dump(file);
+            } catch (IOException e) {
+                Battlegear.logger.error("Failed to write " + file, e);
+                throw new CommandException("commands.bgnetwork.dump.failed", file.getName());
+            }
+            func_152373_a(sender, this, "commands.bgnetwork.dump", file.getName());
+        } else if (operation.equals(operations[3])) {
+            stats.reset();
+            Battlegear.packetHandler.getStats(Side.CLIENT).reset();
+            func_152373_a(sender, this, "commands.bgnetwork.reset");
+        } else {
+            throw new WrongUsageException(getCommandUsage(sender));
+        }
+    }
+
+    private void report(ICommandSender sender, PacketStats stats) {
+        sender.addChatMessage(new ChatComponentTranslation("commands.bgnetwork.types"));
+        for (int type = 0; type < stats.getTypeCount(); type++) {
+            long packetsIn = stats.get(type, PacketStats.PACKETS_IN);
+            long packetsOut = stats.get(type, PacketStats.PACKETS_OUT);
+            if (packetsIn == 0 && packetsOut == 0) {
+                continue;
+            }
+            StringBuilder line = new StringBuilder(stats.getTypeName(type)).append(':');
+            if (packetsIn > 0) {
+                line.append(" in ").append(packetsIn).append(" (")
+                        .append(formatBytes(stats.get(type, PacketStats.BYTES_IN))).append(", mostly ")
+                        .append(formatBucket(getMostCommonBucket(stats, type, true))).append(')');
+            }
+            if (packetsOut > 0) {
+                line.append(" out ").append(packetsOut).append(" (")
+                        .append(formatBytes(stats.get(type, PacketStats.BYTES_OUT))).append(", mostly ")
+                        .append(formatBucket(getMostCommonBucket(stats, type, false))).append(')');
+            }
+            long limited = Battlegear.packetHandler.getDroppedPackets(BattlegearPacketHandeler.getPacketType(type));
+            if (limited > 0) {
+                line.append(" limited ").append(limited);
+            }
+            sender.addChatMessage(new ChatComponentText(line.toString()));
+        }
+        PacketQueue queue = Battlegear.packetHandler.getPacketQueue(Side.SERVER);
+        sender.addChatMessage(
+                new ChatComponentTranslation(
+                        "commands.bgnetwork.queue",
+                        queue.getDepth(),
+                        queue.getCapacity(),
+                        queue.getDrained(),
+                        queue.getRejected(),
+                        String.format("%.2f", queue.getLastDrainNanos() / 1.0E6D),
+                        String.format("%.2f", queue.getMaxDrainNanos() / 1.0E6D)));
+        long malformed = Battlegear.packetHandler.getMalformedPackets();
+        if (malformed > 0) {
+            sender.addChatMessage(new ChatComponentTranslation("commands.bgnetwork.malformed", malformed));
+        }
+    }
+
+    private static int getMostCommonBucket(PacketStats stats, int type, boolean in) {
+        int most = 0;
+        for (int bucket = 1; bucket < PacketStats.SIZE_BUCKETS; bucket++) {
+            if (stats.getSizeCount(type, bucket, in) > stats.getSizeCount(type, most, in)) {
+                most = bucket;
+            }
+        }
+        return most;
+    }
+
+    private static String formatBucket(int bucket) {
+        int limit = PacketStats.getBucketLimit(bucket);
+        return limit < 0 ? "over " + PacketStats.getBucketLimit(bucket - 1) + " B" : "up to " + limit + " B";
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KiB", bytes / 1024D);
+        }
+        return String.format("%.1f MiB", bytes / (1024D * 1024D));
+    }
+
+    /**
+     * Write the counters of both sides, the client ones being only filled when the server runs in a client
+     */
+    private static void dump(File file) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), Charsets.UTF_8));
+        try {
+            PacketStats.writeCsvHeader(out);
+            Battlegear.packetHandler.getStats(Side.SERVER).writeCsv(out, "server");
+            Battlegear.packetHandler.getStats(Side.CLIENT).writeCsv(out, "client");
+        } finally {
+            out.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<String> addTabCompletionOptions(ICommandSender sender, String[] args) {
+        if (args.length == 1) return getListOfStringsMatchingLastWord(args, operations);
+        return null;
+    }
+
+    @Override
+    public int compareTo(Object object) {
+        return compareTo((ICommand) object);
+    }
+}
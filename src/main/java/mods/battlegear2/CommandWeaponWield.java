@@ -2,7 +2,6 @@ package mods.battlegear2;
 
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
 
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.ICommand;
@@ -20,7 +19,7 @@ import com.google.common.collect.Sets;
 import cpw.mods.fml.common.registry.GameData;
 import cpw.mods.fml.common.registry.GameRegistry;
 import mods.battlegear2.api.weapons.WeaponRegistry;
-import mods.battlegear2.packet.WieldSetPacket;
+import mods.battlegear2.utils.WieldOverrides;
 
 /**
  * Command that can be used by op to set held/named items in the WeaponRegistry and tinker its sensitivity
@@ -42,10 +41,6 @@ public final class CommandWeaponWield extends CommandBase {
      * Sensitivity operations
      */
     public final String[] operations = { "add", "remove", "get" };
-    /**
-     * Selected sensitivities for the WeaponRegistry comparison algorithm
-     */
-    private Set<String> sensitivities = Sets.newHashSet("ID", "DAMAGE", "NBT");
 
     @Override
     public String getCommandName() {
@@ -70,7 +65,11 @@ public final class CommandWeaponWield extends CommandBase {
                     if (var1 instanceof EntityPlayer) itemStack = ((EntityPlayer) var1).getCurrentEquippedItem();
                     else throw new PlayerNotFoundException();
                 } else if (var2[0].equals(searchModes[2]) && var2[1].equals(operations[2])) { // sensitivity get
-                    func_152373_a(var1, this, "commands.weaponwield.sensitivity", sensitivities);
+                    func_152373_a(
+                            var1,
+                            this,
+                            "commands.weaponwield.sensitivity",
+                            WieldOverrides.get().getSensitivities());
                     return;
                 }
             } else if (var2.length < 5) {
@@ -84,9 +83,10 @@ public final class CommandWeaponWield extends CommandBase {
                         try {
                             WeaponRegistry.Sensitivity sens = WeaponRegistry.Sensitivity
                                     .valueOf(var2[2].toUpperCase(Locale.ENGLISH));
-                            if (sensitivities.add(sens.name()) && WeaponRegistry.addSensitivity(sens)) {
+                            if (WieldOverrides.get().setSensitivity(sens, true)) {
                                 func_152373_a(var1, this, "commands.weaponwield.sensitivity.added", sens);
-                                var1.addChatMessage(new ChatComponentText(sensitivities.toString()));
+                                var1.addChatMessage(
+                                        new ChatComponentText(WieldOverrides.get().getSensitivities().toString()));
                                 return;
                             }
                         } catch (IllegalArgumentException ignored) {}
@@ -94,9 +94,10 @@ public final class CommandWeaponWield extends CommandBase {
                         try {
                             WeaponRegistry.Sensitivity sens = WeaponRegistry.Sensitivity
                                     .valueOf(var2[2].toUpperCase(Locale.ENGLISH));
-                            if (sensitivities.remove(sens.name()) && WeaponRegistry.removeSensitivity(sens)) {
+                            if (WieldOverrides.get().setSensitivity(sens, false)) {
                                 func_152373_a(var1, this, "commands.weaponwield.sensitivity.removed", sens);
-                                var1.addChatMessage(new ChatComponentText(sensitivities.toString()));
+                                var1.addChatMessage(
+                                        new ChatComponentText(WieldOverrides.get().getSensitivities().toString()));
                                 return;
                             }
                         } catch (IllegalArgumentException ignored) {}
@@ -116,15 +117,11 @@ public final class CommandWeaponWield extends CommandBase {
     }
 
     public boolean setWeapon(ItemStack stack, String type) {
-        return WeaponRegistry.Wield.valueOf(type).setWeapon(stack);
+        return WieldOverrides.get().setWield(stack, WeaponRegistry.Wield.valueOf(type), false);
     }
 
     public boolean setUsable(ItemStack stack, String type) {
-        if (WeaponRegistry.Wield.valueOf(type).setUsable(stack)) {
-            Battlegear.packetHandler.sendPacketToAll(new WieldSetPacket(stack, type).generatePacket());
-            return true;
-        }
-        return false;
+        return WieldOverrides.get().setWield(stack, WeaponRegistry.Wield.valueOf(type), true);
     }
 
     @SuppressWarnings("unchecked")
@@ -149,9 +146,11 @@ public final class CommandWeaponWield extends CommandBase {
                             par2ArrayOfStr,
                             Sets.difference(
                                     ImmutableSet.copyOf(getNames(WeaponRegistry.Sensitivity.values(), false)),
-                                    sensitivities));
+                                    WieldOverrides.get().getSensitivities()));
                 else if (par2ArrayOfStr[1].equals(operations[1])) { // remove
-                    return getListOfStringsFromIterableMatchingLastWord(par2ArrayOfStr, sensitivities);
+                    return getListOfStringsFromIterableMatchingLastWord(
+                            par2ArrayOfStr,
+                            WieldOverrides.get().getSensitivities());
                 }
             }
         } else if (par2ArrayOfStr.length == 4) {
@@ -18,6 +18,7 @@ import net.minecraftforge.event.entity.living.LivingHurtEvent;
 
 import cpw.mods.fml.common.eventhandler.EventPriority;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import mods.battlegear2.api.core.ItemCapabilities;
 import mods.battlegear2.api.weapons.Attributes;
 import mods.battlegear2.api.weapons.IBackStabbable;
 import mods.battlegear2.api.weapons.IHitTimeModifier;
@@ -33,6 +34,12 @@ public final class WeaponHookContainerClass {
 
     public static final WeaponHookContainerClass INSTANCE = new WeaponHookContainerClass();
     public static final float backstabFuzzy = 0.01F;
+    /**
+     * The capabilities of the held item with an effect when attacking
+     */
+    private static final int ON_ATTACK = ItemCapabilities.BACK_STABBABLE | ItemCapabilities.SPECIAL_EFFECT
+            | ItemCapabilities.POTION_EFFECT
+            | ItemCapabilities.HIT_TIME_MODIFIER;
 
     private WeaponHookContainerClass() {}
 
@@ -55,22 +62,23 @@ public final class WeaponHookContainerClass {
             if (attacker instanceof EntityLivingBase) {
                 EntityLivingBase entityHitting = (EntityLivingBase) attacker;
                 ItemStack stack = entityHitting.getHeldItem();
-                if (stack != null) {
+                int capabilities = stack != null ? ItemCapabilities.get(stack.getItem()) : 0;
+                if ((capabilities & ON_ATTACK) != 0) {
                     boolean hit = false;
-                    if (stack.getItem() instanceof IBackStabbable) {
+                    if ((capabilities & ItemCapabilities.BACK_STABBABLE) != 0) {
                         hit = performBackStab(stack.getItem(), entityHit, entityHitting);
                     }
-                    if (stack.getItem() instanceof ISpecialEffect) {
+                    if ((capabilities & ItemCapabilities.SPECIAL_EFFECT) != 0) {
                         boolean tempHit = ((ISpecialEffect) stack.getItem()).performEffects(entityHit, entityHitting);
                         if (!hit) hit = tempHit;
                     }
-                    if (stack.getItem() instanceof IPotionEffect) {
+                    if ((capabilities & ItemCapabilities.POTION_EFFECT) != 0) {
                         performEffects(
                                 ((IPotionEffect) stack.getItem()).getEffectsOnHit(entityHit, entityHitting),
                                 entityHit);
                     }
                     if (!entityHit.worldObj.isRemote) {
-                        if (stack.getItem() instanceof IHitTimeModifier) {
+                        if ((capabilities & ItemCapabilities.HIT_TIME_MODIFIER) != 0) {
                             if (hurtResistanceTimeTemp > entityHit.maxHurtResistantTime * 0.5F) { // Hit shield is in
                                 // effect
                                 int timeModifier = ((IHitTimeModifier) stack.getItem()).getHitTime(stack, entityHit);
@@ -121,7 +129,7 @@ public final class WeaponHookContainerClass {
                 }
             }
             ItemStack itemStack = ((EntityLivingBase) hurt.source.getEntity()).getHeldItem();
-            if (itemStack != null && itemStack.getItem() instanceof IPenetrateWeapon) {
+            if (itemStack != null && ItemCapabilities.has(itemStack.getItem(), ItemCapabilities.PENETRATE)) {
                 hurt.entityLiving.hurtResistantTime = 0;
                 // Attack using the "generic" damage type (ignores armour)
                 hurt.entityLiving.attackEntityFrom(
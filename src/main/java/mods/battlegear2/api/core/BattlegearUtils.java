@@ -2,6 +2,7 @@ package mods.battlegear2.api.core;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.BitSet;
 
 import net.minecraft.enchantment.EnchantmentHelper;
 import net.minecraft.entity.Entity;
@@ -13,16 +14,7 @@ import net.minecraft.entity.boss.EntityDragonPart;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.EnumAction;
 import net.minecraft.item.Item;
-import net.minecraft.item.ItemBlock;
-import net.minecraft.item.ItemBow;
-import net.minecraft.item.ItemBucket;
-import net.minecraft.item.ItemEnderPearl;
-import net.minecraft.item.ItemFireball;
-import net.minecraft.item.ItemFlintAndSteel;
-import net.minecraft.item.ItemSnowball;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.ItemSword;
-import net.minecraft.item.ItemTool;
 import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTSizeTracker;
 import net.minecraft.nbt.NBTTagCompound;
@@ -48,12 +40,8 @@ import mods.battlegear2.api.IOffhandDual;
 import mods.battlegear2.api.IOffhandWield;
 import mods.battlegear2.api.IUsableItem;
 import mods.battlegear2.api.PlayerEventChild;
-import mods.battlegear2.api.quiver.IArrowContainer2;
-import mods.battlegear2.api.quiver.ISpecialBow;
 import mods.battlegear2.api.shield.IShield;
-import mods.battlegear2.api.weapons.IBattlegearWeapon;
 import mods.battlegear2.api.weapons.WeaponRegistry;
-import mods.battlegear2.asm.loader.BattlegearLoadingPlugin;
 
 /**
  * Store commonly used method, mostly for the {@link EntityPlayer} {@link ItemStack}s management
@@ -64,34 +52,26 @@ public class BattlegearUtils {
      * Event bus to which {@link mods.battlegear2.api.RenderPlayerEventChild} events are post to
      */
     public static final EventBus RENDER_BUS = new EventBus();
+
     /**
-     * Method names that are not allowed in {@link Item} subclasses for common wielding
+     * The generic attack damage key for {@link ItemStack#getAttributeModifiers()}
      */
-    private static final String[] itemBlackListMethodNames = {
-            BattlegearLoadingPlugin.isObf() ? "func_77648_a" : "onItemUse", "onItemUseFirst", // Added by Forge
-            BattlegearLoadingPlugin.isObf() ? "func_77659_a" : "onItemRightClick" };
+    private static final String genericAttack = SharedMonsterAttributes.attackDamage.getAttributeUnlocalizedName();
     /**
-     * Method arguments classes that are not allowed in {@link Item} subclasses for common wielding
+     * The ore dictionary names making a weapon, see {@link #setWeaponOreNames(String...)}
      */
-    private static final Class<?>[][] itemBlackListMethodParams = {
-            new Class[] { ItemStack.class, EntityPlayer.class, World.class, int.class, int.class, int.class, int.class,
-                    float.class, float.class, float.class },
-            new Class[] { ItemStack.class, EntityPlayer.class, World.class, int.class, int.class, int.class, int.class,
-                    float.class, float.class, float.class },
-            new Class[] { ItemStack.class, World.class, EntityPlayer.class } };
-
-    private static ItemStack prevNotWieldable;
+    private static String[] weaponOreNames = { "craftingToolBlade", "craftingToolAxe" };
     /**
-     * The generic attack damage key for {@link ItemStack#getAttributeModifiers()}
+     * The ids of the ore names making a weapon, replaced on change so that readers never see a partial set
      */
-    private static final String genericAttack = SharedMonsterAttributes.attackDamage.getAttributeUnlocalizedName();
+    private static volatile BitSet weaponOres;
 
     /**
      * Helper method to check if player can use {@link IShield}
      */
     public static boolean canBlockWithShield(EntityPlayer player) {
         ItemStack offhand = ((IInventoryPlayerBattle) player.inventory).battlegear2$getCurrentOffhandWeapon();
-        return offhand != null && offhand.getItem() instanceof IShield;
+        return offhand != null && ItemCapabilities.has(offhand.getItem(), ItemCapabilities.SHIELD);
     }
 
     /**
@@ -144,24 +124,61 @@ public class BattlegearUtils {
      * @return true if the item is a generic weapon
      */
     public static boolean isWeapon(ItemStack main) {
-        if (main.getItem() instanceof IBattlegearWeapon) // Our generic weapon flag
+        if (ItemCapabilities.has(main.getItem(), ItemCapabilities.BATTLEGEAR_WEAPON)) // Our generic weapon flag
+            return true;
+        return (getClassification(main) & WieldClassCache.WEAPON) != 0;
+    }
+
+    /**
+     * Get the wielding properties of a stack, computed once then remembered by {@link WieldClassCache}
+     *
+     * @param stack the non-null stack to classify
+     * @return the {@link WieldClassCache} flags for the stack
+     */
+    public static int getClassification(ItemStack stack) {
+        int flags = WieldClassCache.get(stack);
+        if (flags < 0) {
+            flags = classify(stack);
+            WieldClassCache.put(stack, flags);
+        }
+        return flags;
+    }
+
+    private static int classify(ItemStack stack) {
+        int flags = 0;
+        if (isGenericWeapon(stack)) {
+            flags |= WieldClassCache.WEAPON;
+            if (checkWeaponOreDictEntries(stack) || stack.getAttributeModifiers().containsKey(genericAttack)) {
+                flags |= WieldClassCache.MAINHAND | WieldClassCache.OFFHAND; // With generic attack
+            } else { // Or registered
+                if (WeaponRegistry.isMainHand(stack)) flags |= WieldClassCache.MAINHAND;
+                if (WeaponRegistry.isOffHand(stack)) flags |= WieldClassCache.OFFHAND;
+            }
+        } else if (!checkForRightClickFunction(stack)) { // No special functions for offhand/mainhand weapons
+            flags |= WieldClassCache.WEAPON | WieldClassCache.MAINHAND | WieldClassCache.OFFHAND;
+        }
+        if (isCommonlyUsable(stack.getItem())) {
+            flags |= WieldClassCache.COMMONLY_USABLE | WieldClassCache.USAGE_PRIOR_ATTACK;
+        } else {
+            EnumAction useAction = stack.getItemUseAction();
+            if (useAction == EnumAction.bow || useAction == EnumAction.drink || useAction == EnumAction.eat)
+                flags |= WieldClassCache.USAGE_PRIOR_ATTACK;
+        }
+        if (WeaponRegistry.useOverAttack(stack, false)) flags |= WieldClassCache.USE_MAINHAND;
+        if (WeaponRegistry.useOverAttack(stack, true)) flags |= WieldClassCache.USE_OFFHAND;
+        return flags;
+    }
+
+    private static boolean isGenericWeapon(ItemStack main) {
+        if (ItemCapabilities.has(main.getItem(), ItemCapabilities.BATTLEGEAR_WEAPON)) // Our generic weapon flag
             return true;
         else if (main.getMaxStackSize() == 1 && main.getMaxDamage() > 0 && !main.getHasSubtypes()) // Usual values for
             // tools, sword, and
             // bow
             return true;
-        else if (main == prevNotWieldable) // Prevent lag from check spam
-            return false;
         else if (WeaponRegistry.isWeapon(main)) // Registered as such
             return true;
-        else if (checkWeaponOreDictEntries(main)) return true;
-        else if (!checkForRightClickFunction(main)) { // Make sure there are no special functions for offhand/mainhand
-            // weapons
-            WeaponRegistry.addDualWeapon(main); // register so as not to make that costly check again
-            return true;
-        }
-        prevNotWieldable = main;
-        return false;
+        else return checkWeaponOreDictEntries(main);
     }
 
     /**
@@ -171,18 +188,67 @@ public class BattlegearUtils {
      * @return true if the item is a GT weapon
      */
     public static boolean checkWeaponOreDictEntries(ItemStack main) {
-        int[] oreDictEntries = OreDictionary.getOreIDs(main);
+        BitSet ores = weaponOres;
+        if (ores == null) {
+            ores = buildWeaponOres();
+        }
+        if (ores.isEmpty()) {
+            return false;
+        }
+        for (int ore : OreDictionary.getOreIDs(main)) {
+            if (ores.get(ore)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        for (int i = 0; i < oreDictEntries.length; i++) {
-            int ore = oreDictEntries[i];
-            String name = OreDictionary.getOreName(ore);
+    /**
+     * Set the ore dictionary names that make a weapon, see {@link #checkWeaponOreDictEntries(ItemStack)}
+     *
+     * @param names exact ore names, or prefixes ending with '*'
+     */
+    public static void setWeaponOreNames(String... names) {
+        weaponOreNames = names.clone();
+        buildWeaponOres();
+        WieldClassCache.invalidate();
+    }
 
-            if (name.equals("craftingToolBlade") || name.equals("craftingToolAxe")) // craftingToolPickaxe?
-            {
-                return true;
+    /**
+     * Add a newly registered ore name to the weapon ores, if it matches one of the names
+     *
+     * @param name the ore name from {@link OreDictionary.OreRegisterEvent}
+     */
+    public static void onOreRegistered(String name) {
+        BitSet ores = weaponOres;
+        if (ores != null && isWeaponOreName(name)) {
+            int id = OreDictionary.getOreID(name);
+            if (!ores.get(id)) {
+                ores = (BitSet) ores.clone();
+                ores.set(id);
+                weaponOres = ores;
+            }
+        }
+    }
+
+    private static BitSet buildWeaponOres() {
+        BitSet ores = new BitSet();
+        for (String name : OreDictionary.getOreNames()) {
+            if (isWeaponOreName(name)) {
+                ores.set(OreDictionary.getOreID(name));
             }
         }
+        weaponOres = ores;
+        return ores;
+    }
 
+    private static boolean isWeaponOreName(String name) {
+        for (String weaponName : weaponOreNames) {
+            if (weaponName.endsWith("*") ? name.startsWith(weaponName.substring(0, weaponName.length() - 1))
+                    : name.equals(weaponName)) {
+                return true;
+            }
+        }
         return false;
     }
 
@@ -191,16 +257,15 @@ public class BattlegearUtils {
      */
     public static boolean isMainHand(ItemStack main, ItemStack off) {
         if (main == null) return true;
-        else if (main.getItem() instanceof IAllowItem) // An item using the API
+        int capabilities = ItemCapabilities.get(main.getItem());
+        if ((capabilities & ItemCapabilities.ALLOW_OFFHAND) != 0) // An item using the API
             return ((IAllowItem) main.getItem()).allowOffhand(main, off); // defined by the item
-        else if (main.getItem() instanceof IArrowContainer2) // A quiver
+        else if ((capabilities & ItemCapabilities.ARROW_CONTAINER) != 0) // A quiver
             return true; // anything ?
         else if (usagePriorAttack(main)) // "Usable" item
             return off == null || !usagePriorAttack(off); // With empty hand or non "usable item"
-        else if (isWeapon(main)) // A generic weapon
-            return checkWeaponOreDictEntries(main) || main.getAttributeModifiers().containsKey(genericAttack)
-                    || WeaponRegistry.isMainHand(main); // With either generic attack, or registered
-        return false;
+        // A generic weapon, with either generic attack, or registered
+        return (getClassification(main) & WieldClassCache.MAINHAND) != 0;
     }
 
     /**
@@ -213,17 +278,16 @@ public class BattlegearUtils {
      */
     public static boolean isMainHand(ItemStack main, ItemStack off, EntityPlayer wielder) {
         if (main == null) return true;
-        else if (main.getItem() instanceof IAllowItem) // An item using the API
+        int capabilities = ItemCapabilities.get(main.getItem());
+        if ((capabilities & ItemCapabilities.ALLOW_OFFHAND) != 0) // An item using the API
             return ((IAllowItem) main.getItem()).allowOffhand(main, off); // defined by the item TODO pass through third
         // parameter
-        else if (main.getItem() instanceof IArrowContainer2) // A quiver
+        else if ((capabilities & ItemCapabilities.ARROW_CONTAINER) != 0) // A quiver
             return true; // anything ?
         else if (usagePriorAttack(main, wielder, false)) // "Usable" item
             return off == null || !usagePriorAttack(off, wielder, true); // With empty hand or non "usable item"
-        else if (isWeapon(main)) // A generic weapon
-            return checkWeaponOreDictEntries(main) || main.getAttributeModifiers().containsKey(genericAttack)
-                    || WeaponRegistry.isMainHand(main); // With either generic attack, or registered
-        return false;
+        // A generic weapon, with either generic attack, or registered
+        return (getClassification(main) & WieldClassCache.MAINHAND) != 0;
     }
 
     /**
@@ -231,17 +295,14 @@ public class BattlegearUtils {
      */
     public static boolean isOffHand(ItemStack off) {
         if (off == null) return true;
-        else if (off.getItem() instanceof IOffhandDual) // An item using the API
+        int capabilities = ItemCapabilities.get(off.getItem());
+        if ((capabilities & ItemCapabilities.OFFHAND_DUAL) != 0) // An item using the API
             return ((IOffhandDual) off.getItem()).isOffhandHandDual(off); // defined by the item
-        else if (off.getItem() instanceof IShield || off.getItem() instanceof IArrowContainer2 || usagePriorAttack(off)) // Shield,
-            // Quiver,
-            // or
-            // "usable"
+        else if ((capabilities & (ItemCapabilities.SHIELD | ItemCapabilities.ARROW_CONTAINER)) != 0
+                || usagePriorAttack(off)) // Shield, Quiver, or "usable"
             return true; // always
-        else if (isWeapon(off)) // A generic weapon
-            return checkWeaponOreDictEntries(off) || off.getAttributeModifiers().containsKey(genericAttack)
-                    || WeaponRegistry.isOffHand(off); // with a generic attack or registered
-        return false;
+        // A generic weapon, with a generic attack or registered
+        return (getClassification(off) & WieldClassCache.OFFHAND) != 0;
     }
 
     /**
@@ -254,31 +315,25 @@ public class BattlegearUtils {
     @SuppressWarnings("deprecation")
     public static boolean isOffHand(ItemStack off, EntityPlayer wielder) {
         if (off == null) return true;
-        else if (off.getItem() instanceof IOffhandDual) // An item using the API
+        int capabilities = ItemCapabilities.get(off.getItem());
+        if ((capabilities & ItemCapabilities.OFFHAND_DUAL) != 0) // An item using the API
             return ((IOffhandDual) off.getItem()).isOffhandHandDual(off); // defined by the item
-        else if (off.getItem() instanceof IOffhandWield) // An item using the API
+        else if ((capabilities & ItemCapabilities.OFFHAND_WIELD) != 0) // An item using the API
             return ((IOffhandWield) off.getItem()).isOffhandWieldable(off, wielder); // defined by the item
-        else if (off.getItem() instanceof IShield || off.getItem() instanceof IArrowContainer2
+        else if ((capabilities & (ItemCapabilities.SHIELD | ItemCapabilities.ARROW_CONTAINER)) != 0
                 || usagePriorAttack(off, wielder, true)) // Shield, Quiver, or "usable"
             return true; // always
-        else if (isWeapon(off)) // A generic weapon
-            return checkWeaponOreDictEntries(off) || off.getAttributeModifiers().containsKey(genericAttack)
-                    || WeaponRegistry.isOffHand(off); // with a generic attack or registered
-        return false;
+        // A generic weapon, with a generic attack or registered
+        return (getClassification(off) & WieldClassCache.OFFHAND) != 0;
     }
 
     /**
      * @deprecated see below
      */
     public static boolean usagePriorAttack(ItemStack itemStack) {
-        if (itemStack.getItem() instanceof IUsableItem)
+        if (ItemCapabilities.has(itemStack.getItem(), ItemCapabilities.USABLE))
             return ((IUsableItem) itemStack.getItem()).isUsedOverAttack(itemStack);
-        else {
-            EnumAction useAction = itemStack.getItemUseAction();
-            return useAction == EnumAction.bow || useAction == EnumAction.drink
-                    || useAction == EnumAction.eat
-                    || isCommonlyUsable(itemStack.getItem());
-        }
+        else return (getClassification(itemStack) & WieldClassCache.USAGE_PRIOR_ATTACK) != 0;
     }
 
     /**
@@ -289,15 +344,10 @@ public class BattlegearUtils {
      * @return true if such item prefer being "used"
      */
     public static boolean usagePriorAttack(ItemStack itemStack, EntityPlayer wielder, boolean off) {
-        if (itemStack.getItem() instanceof IUsableItem) // TODO pass through wielding player
+        if (ItemCapabilities.has(itemStack.getItem(), ItemCapabilities.USABLE)) // TODO pass through wielding player
             return ((IUsableItem) itemStack.getItem()).isUsedOverAttack(itemStack);
-        else {
-            EnumAction useAction = itemStack.getItemUseAction();
-            return useAction == EnumAction.bow || useAction == EnumAction.drink
-                    || useAction == EnumAction.eat
-                    || isCommonlyUsable(itemStack.getItem())
-                    || WeaponRegistry.useOverAttack(itemStack, off);
-        }
+        else return (getClassification(itemStack) & (WieldClassCache.USAGE_PRIOR_ATTACK
+                | (off ? WieldClassCache.USE_OFFHAND : WieldClassCache.USE_MAINHAND))) != 0;
     }
 
     /**
@@ -307,12 +357,7 @@ public class BattlegearUtils {
      * @return true if it is commonly usable
      */
     public static boolean isCommonlyUsable(Item item) {
-        return isBow(item) || item instanceof ItemBlock
-                || item instanceof ItemFlintAndSteel
-                || item instanceof ItemFireball
-                || item instanceof ItemBucket
-                || item instanceof ItemSnowball
-                || item instanceof ItemEnderPearl;
+        return ItemCapabilities.has(item, ItemCapabilities.COMMONLY_USABLE);
     }
 
     /**
@@ -322,7 +367,7 @@ public class BattlegearUtils {
      * @return true if it is considered a generic enough bow
      */
     public static boolean isBow(Item item) {
-        return item instanceof ItemBow || item instanceof ISpecialBow;
+        return ItemCapabilities.has(item, ItemCapabilities.BOW);
     }
 
     @Deprecated // See method below
@@ -330,32 +375,18 @@ public class BattlegearUtils {
         return checkForRightClickFunction(stack);
     }
 
+    /**
+     * @param stack the stack to check
+     * @return true if the stack has a use action, or its item overrides a right click method, as found by
+     *         {@link ItemCapabilities#RIGHT_CLICK}
+     */
     public static boolean checkForRightClickFunction(ItemStack stack) {
         if (stack.getItemUseAction() == EnumAction.block || stack.getItemUseAction() == EnumAction.none) {
-            Class<?> c = stack.getItem().getClass();
-            while (!(c.equals(Item.class) || c.equals(ItemTool.class) || c.equals(ItemSword.class))) {
-                if (getBlackListedMethodIn(c)) {
-                    return true;
-                }
-
-                c = c.getSuperclass();
-            }
-
-            return false;
+            return ItemCapabilities.has(stack.getItem(), ItemCapabilities.RIGHT_CLICK);
         }
         return true;
     }
 
-    private static boolean getBlackListedMethodIn(Class<?> c) {
-        for (int i = 0; i < itemBlackListMethodNames.length; i++) {
-            try {
-                c.getDeclaredMethod(itemBlackListMethodNames[i], itemBlackListMethodParams[i]);
-                return true;
-            } catch (Throwable ignored) {}
-        }
-        return false;
-    }
-
     /**
      * Reads a {@link ItemStack} from the InputStream
      */
@@ -437,18 +468,19 @@ public class BattlegearUtils {
      * Basically, a copy of {@link EntityPlayer#attackTargetEntityWithCurrentItem(Entity)}, adapted for the offhand
      * Hotswap the "current item" value to the offhand, then refresh the player attributes according to the newly
      * selected item Reset everything back if the attack is cancelled by {@link AttackEntityEvent} or
-     * {@link Item#onLeftClickEntity(ItemStack, EntityPlayer, Entity)} Used as a hook by {@link IBattlePlayer}
+     * {@link Item#onLeftClickEntity(ItemStack, EntityPlayer, Entity)} Used as a hook by {@link IBattlePlayer} The
+     * attribute map is only changed for the modifiers differing between both hands, so dual wielding identical
+     * weapons leaves it untouched
      *
      * @param player     the attacker
      * @param par1Entity the attacked
      */
     public static void attackTargetEntityWithCurrentOffItem(EntityPlayer player, Entity par1Entity) {
-        refreshAttributes(player, false);
+        ItemStack stack = refreshAttributes(player, false);
         if (MinecraftForge.EVENT_BUS.post(new AttackEntityEvent(player, par1Entity))) {
             refreshAttributes(player, true);
             return;
         }
-        ItemStack stack = player.getCurrentEquippedItem();
         if (stack != null && stack.getItem().onLeftClickEntity(stack, player, par1Entity)) {
             refreshAttributes(player, true);
             return;
@@ -672,15 +704,15 @@ public class BattlegearUtils {
     }
 
     /**
-     * Refresh the attribute map by removing from the old item and applying the current item
+     * Refresh the attribute map by removing from the old item and applying the current item Only the attributes whose
+     * modifiers differ between both items are changed, see {@link HandSwapModifiers}
      *
      * @param attributeMap the map to refresh
      * @param oldItem      the old item whose attributes will be removed
      * @param currentItem  the current item whose attributes will be applied
      */
     public static void refreshAttributes(BaseAttributeMap attributeMap, ItemStack oldItem, ItemStack currentItem) {
-        if (oldItem != null) attributeMap.removeAttributeModifiers(oldItem.getAttributeModifiers());
-        if (currentItem != null) attributeMap.applyAttributeModifiers(currentItem.getAttributeModifiers());
+        HandSwapModifiers.swap(attributeMap, oldItem, currentItem);
     }
 
     /**
@@ -0,0 +1,177 @@
+package mods.battlegear2.api.core;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.minecraft.entity.ai.attributes.AttributeModifier;
+import net.minecraft.entity.ai.attributes.BaseAttributeMap;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+
+/**
+ * Bounded memory of the attribute modifiers that differ between two stacks, so that swapping the wielded stack only
+ * touches the attributes it actually changes. Two identical weapons swap without any change to the attribute map.
+ */
+public final class HandSwapModifiers {
+
+    private static final Object lock = new Object();
+    private static final int CAPACITY = 256;
+    private static final Map<Key, Delta> deltas = new LinkedHashMap<Key, Delta>(64, 0.75F, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Delta> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    private static final Key probe = new Key();
+
+    private HandSwapModifiers() {}
+
+    /**
+     * Update the attribute map from the modifiers of the old stack to those of the new stack
+     *
+     * @param attributeMap the map, which has the old stack modifiers applied
+     * @param oldItem      the stack no longer wielded
+     * @param currentItem  the stack now wielded
+     */
+    public static void swap(BaseAttributeMap attributeMap, ItemStack oldItem, ItemStack currentItem) {
+        if (oldItem == null && currentItem == null) {
+            return;
+        }
+        Delta delta;
+        synchronized (lock) {
+            probe.set(oldItem, currentItem, false);
+            delta = deltas.get(probe);
+            if (delta == null) {
+                delta = new Delta(oldItem, currentItem);
+                Key key = new Key();
+                key.set(oldItem, currentItem, true);
+                deltas.put(key, delta);
+            }
+        }
+        if (!delta.removed.isEmpty()) {
+            attributeMap.removeAttributeModifiers(delta.removed);
+        }
+        if (!delta.applied.isEmpty()) {
+            attributeMap.applyAttributeModifiers(delta.applied);
+        }
+    }
+
+    /**
+     * The modifiers of the attributes changed by a swap
+     */
+    private static final class Delta {
+
+        private final Multimap<String, AttributeModifier> removed = HashMultimap.create();
+        private final Multimap<String, AttributeModifier> applied = HashMultimap.create();
+
+        private Delta(ItemStack oldItem, ItemStack currentItem) {
+            Multimap<String, AttributeModifier> old = oldItem != null ? oldItem.getAttributeModifiers()
+                    : HashMultimap.<String, AttributeModifier>create();
+            Multimap<String, AttributeModifier> current = currentItem != null ? currentItem.getAttributeModifiers()
+                    : HashMultimap.<String, AttributeModifier>create();
+            for (String name : Sets.union(old.keySet(), current.keySet())) {
+                if (!same(old.get(name), current.get(name))) {
+                    removed.putAll(name, old.get(name));
+                    applied.putAll(name, current.get(name));
+                }
+            }
+        }
+
+        /**
+         * {@link AttributeModifier#equals(Object)} only compares identifiers, amounts and operations matter too
+         */
+        private static boolean same(Collection<AttributeModifier> first, Collection<AttributeModifier> second) {
+            if (first.size() != second.size()) {
+                return false;
+            }
+            for (AttributeModifier modifier : first) {
+                boolean found = false;
+                for (AttributeModifier other : second) {
+                    if (modifier.getID().equals(other.getID()) && modifier.getOperation() == other.getOperation()
+                            && modifier.getAmount() == other.getAmount()) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Identifies an ordered pair of stacks by their items, metadata and NBT
+     */
+    private static final class Key {
+
+        private Item oldItem, newItem;
+        private int oldDamage, newDamage;
+        private NBTTagCompound oldTag, newTag;
+        private int hash;
+
+        private void set(ItemStack oldStack, ItemStack newStack, boolean stored) {
+            oldItem = oldStack != null ? oldStack.getItem() : null;
+            oldDamage = damage(oldStack);
+            oldTag = tag(oldStack, stored);
+            newItem = newStack != null ? newStack.getItem() : null;
+            newDamage = damage(newStack);
+            newTag = tag(newStack, stored);
+            int h = System.identityHashCode(oldItem);
+            h = 31 * h + oldDamage;
+            h = 31 * h + (oldTag != null ? oldTag.hashCode() : 0);
+            h = 31 * h + System.identityHashCode(newItem);
+            h = 31 * h + newDamage;
+            hash = 31 * h + (newTag != null ? newTag.hashCode() : 0);
+        }
+
+        /**
+         * Wear of damageable stacks doesn't make a variant, and changes with every hit, unless the item computes its
+         * modifiers from the stack
+         */
+        private static int damage(ItemStack stack) {
+            if (stack == null || stack.isItemStackDamageable()
+                    && !ItemCapabilities.has(stack.getItem(), ItemCapabilities.STACK_ATTRIBUTES)) {
+                return 0;
+            }
+            return stack.getItemDamage();
+        }
+
+        private static NBTTagCompound tag(ItemStack stack, boolean stored) {
+            if (stack == null || !stack.hasTagCompound()) {
+                return null;
+            }
+            return stored ? (NBTTagCompound) stack.getTagCompound().copy() : stack.getTagCompound();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && oldItem == other.oldItem
+                    && newItem == other.newItem
+                    && oldDamage == other.oldDamage
+                    && newDamage == other.newDamage
+                    && (oldTag == null ? other.oldTag == null : oldTag.equals(other.oldTag))
+                    && (newTag == null ? other.newTag == null : newTag.equals(other.newTag));
+        }
+    }
+}
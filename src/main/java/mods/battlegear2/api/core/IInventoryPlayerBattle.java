@@ -11,6 +11,10 @@ public interface IInventoryPlayerBattle {
     int WEAPON_SETS = 3;
     int EXTRA_ITEMS = WEAPON_SETS * 2;
     int EXTRA_INV_SIZE = EXTRA_ITEMS + 6 + 6;
+    // Bit mask for all the extra slots, bit i standing for slot OFFSET + i
+    int ALL_EXTRA_SLOTS = (1 << EXTRA_INV_SIZE) - 1;
+    // Bit mask for the weapon sets slots, the only extra slots rendered on players
+    int WEAPON_SLOTS = (1 << EXTRA_ITEMS) - 1;
 
     boolean battlegear2$isBattlemode();
 
@@ -18,10 +22,26 @@ public interface IInventoryPlayerBattle {
 
     void battlegear2$setInventorySlotContents(int index, ItemStack stack, boolean changed);
 
+    /**
+     * @return true if any extra slot has changed since last synchronization
+     */
     boolean battlegear2$isDirty();
 
+    /**
+     * Mark all extra slots as changed, or none of them
+     */
     void battlegear2$setDirty(boolean dirty);
 
+    /**
+     * @return the bit mask of extra slots that changed since last synchronization, see {@link #ALL_EXTRA_SLOTS}
+     */
+    int battlegear2$getDirtySlots();
+
+    /**
+     * @param slots the new bit mask of extra slots needing synchronization
+     */
+    void battlegear2$setDirtySlots(int slots);
+
     /**
      * Patch used for "set current slot" vanilla packets
      *
@@ -0,0 +1,285 @@
+package mods.battlegear2.api.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemBlock;
+import net.minecraft.item.ItemBow;
+import net.minecraft.item.ItemBucket;
+import net.minecraft.item.ItemEnderPearl;
+import net.minecraft.item.ItemFireball;
+import net.minecraft.item.ItemFlintAndSteel;
+import net.minecraft.item.ItemSnowball;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.ItemSword;
+import net.minecraft.item.ItemTool;
+import net.minecraft.world.World;
+
+import mods.battlegear2.api.IAllowItem;
+import mods.battlegear2.api.IHandListener;
+import mods.battlegear2.api.IOffhandDual;
+import mods.battlegear2.api.IOffhandListener;
+import mods.battlegear2.api.IOffhandWield;
+import mods.battlegear2.api.IUsableItem;
+import mods.battlegear2.api.quiver.IArrowContainer2;
+import mods.battlegear2.api.quiver.ISpecialBow;
+import mods.battlegear2.api.shield.IArrowCatcher;
+import mods.battlegear2.api.shield.IShield;
+import mods.battlegear2.api.weapons.IBackStabbable;
+import mods.battlegear2.api.weapons.IBattlegearWeapon;
+import mods.battlegear2.api.weapons.IExtendedReachWeapon;
+import mods.battlegear2.api.weapons.IHitTimeModifier;
+import mods.battlegear2.api.weapons.IPenetrateWeapon;
+import mods.battlegear2.api.weapons.IPotionEffect;
+import mods.battlegear2.api.weapons.ISpecialEffect;
+import mods.battlegear2.asm.loader.BattlegearLoadingPlugin;
+
+/**
+ * The Battlegear interfaces and vanilla types implemented by each {@link Item}, as a bit mask computed once per
+ * instance. Hooks test the mask instead of running their own instanceof chains on every event. Right click overrides
+ * are found by reflection once per item class, so none runs during gameplay.
+ */
+public final class ItemCapabilities {
+
+    /**
+     * {@link ItemBow} or {@link ISpecialBow}, see {@link BattlegearUtils#isBow(Item)}
+     */
+    public static final int BOW = 1;
+    public static final int SPECIAL_BOW = 1 << 1;
+    /**
+     * See {@link BattlegearUtils#isCommonlyUsable(Item)}
+     */
+    public static final int COMMONLY_USABLE = 1 << 2;
+    public static final int BLOCK = 1 << 3;
+    public static final int SHIELD = 1 << 4;
+    public static final int ARROW_CATCHER = 1 << 5;
+    public static final int ARROW_CONTAINER = 1 << 6;
+    public static final int BATTLEGEAR_WEAPON = 1 << 7;
+    public static final int USABLE = 1 << 8;
+    public static final int ALLOW_OFFHAND = 1 << 9;
+    public static final int OFFHAND_DUAL = 1 << 10;
+    public static final int OFFHAND_WIELD = 1 << 11;
+    public static final int OFFHAND_LISTENER = 1 << 12;
+    public static final int HAND_LISTENER = 1 << 13;
+    public static final int EXTENDED_REACH = 1 << 14;
+    public static final int BACK_STABBABLE = 1 << 15;
+    public static final int SPECIAL_EFFECT = 1 << 16;
+    public static final int POTION_EFFECT = 1 << 17;
+    public static final int HIT_TIME_MODIFIER = 1 << 18;
+    public static final int PENETRATE = 1 << 19;
+    /**
+     * Overrides a right click method below {@link Item}, {@link ItemTool} or {@link ItemSword}
+     */
+    public static final int RIGHT_CLICK = 1 << 20;
+    /**
+     * Overrides {@link Item#getAttributeModifiers(ItemStack)} below {@link Item}, so the modifiers may depend on the
+     * stack, including its wear
+     */
+    public static final int STACK_ATTRIBUTES = 1 << 21;
+
+    /**
+     * Method names that are not allowed in {@link Item} subclasses for common wielding
+     */
+    private static final String[] itemBlackListMethodNames = {
+            BattlegearLoadingPlugin.isObf() ? "func_77648_a" : "onItemUse", "onItemUseFirst", // Added by Forge
+            BattlegearLoadingPlugin.isObf() ? "func_77659_a" : "onItemRightClick" };
+    /**
+     * Method arguments classes that are not allowed in {@link Item} subclasses for common wielding
+     */
+    private static final Class<?>[][] itemBlackListMethodParams = {
+            new Class[] { ItemStack.class, EntityPlayer.class, World.class, int.class, int.class, int.class, int.class,
+                    float.class, float.class, float.class },
+            new Class[] { ItemStack.class, EntityPlayer.class, World.class, int.class, int.class, int.class, int.class,
+                    float.class, float.class, float.class },
+            new Class[] { ItemStack.class, World.class, EntityPlayer.class } };
+    private static final Map<Item, Integer> masks = new ConcurrentHashMap<Item, Integer>(512);
+    /**
+     * Whether each item class overrides a right click method, shared by the items of a class
+     */
+    private static final Map<Class<?>, Boolean> rightClickClasses = new ConcurrentHashMap<Class<?>, Boolean>(256);
+    /**
+     * Right click results of a previous run, by class name, trusted instead of reflection
+     */
+    private static volatile Map<String, Boolean> knownRightClick = Collections.emptyMap();
+    /**
+     * Whether each item class overrides the stack attribute modifiers method, shared by the items of a class
+     */
+    private static final Map<Class<?>, Boolean> stackAttributeClasses = new ConcurrentHashMap<Class<?>, Boolean>(
+            256);
+
+    private ItemCapabilities() {}
+
+    /**
+     * @param item the instance to consider, may be null
+     * @return the capabilities of the item, computed on first query for items registered after the initial pass
+     */
+    public static int get(Item item) {
+        if (item == null) {
+            return 0;
+        }
+        Integer mask = masks.get(item);
+        if (mask == null) {
+            mask = compute(item);
+            masks.put(item, mask);
+        }
+        return mask;
+    }
+
+    /**
+     * @return true if the item has any of the given capabilities
+     */
+    public static boolean has(Item item, int capabilities) {
+        return (get(item) & capabilities) != 0;
+    }
+
+    /**
+     * Compute the capabilities of every registered item, the reflective lookups of each item class being done in
+     * parallel
+     */
+    public static void computeAll() {
+        Set<Class<?>> classes = new HashSet<Class<?>>();
+        for (Object item : Item.itemRegistry) {
+            if (!knownRightClick.containsKey(item.getClass().getName())) {
+                classes.add(item.getClass());
+            }
+        }
+        scanRightClick(classes);
+        for (Object item : Item.itemRegistry) {
+            get((Item) item);
+        }
+    }
+
+    /**
+     * Provide the right click results of a previous run, see {@link #getRightClickClasses()}
+     *
+     * @param known the results by class name, which must come from the same set of classes
+     */
+    public static void setKnownRightClickClasses(Map<String, Boolean> known) {
+        knownRightClick = new HashMap<String, Boolean>(known);
+    }
+
+    /**
+     * @return the right click results found so far, by class name
+     */
+    public static Map<String, Boolean> getRightClickClasses() {
+        Map<String, Boolean> classes = new HashMap<String, Boolean>(rightClickClasses.size());
+        for (Map.Entry<Class<?>, Boolean> entry : rightClickClasses.entrySet()) {
+            classes.put(entry.getKey().getName(), entry.getValue());
+        }
+        return classes;
+    }
+
+    private static void scanRightClick(Collection<Class<?>> classes) {
+        int threads = Math.min(classes.size(), Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            for (Class<?> c : classes) {
+                overridesRightClick(c);
+            }
+            return;
+        }
+        List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>(classes.size());
+        for (final Class<?> c : classes) {
+            tasks.add(new Callable<Boolean>() {
+
+                @Override
+                public Boolean call() {
+                    return overridesRightClick(c);
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static boolean overridesRightClick(Class<?> c) {
+        if (c == null || c == Item.class || c == ItemTool.class || c == ItemSword.class) {
+            return false;
+        }
+        Boolean result = rightClickClasses.get(c);
+        if (result == null) {
+            result = knownRightClick.get(c.getName());
+            if (result == null) {
+                result = declaresRightClick(c) || overridesRightClick(c.getSuperclass());
+            }
+            rightClickClasses.put(c, result);
+        }
+        return result;
+    }
+
+    private static boolean declaresRightClick(Class<?> c) {
+        for (int i = 0; i < itemBlackListMethodNames.length; i++) {
+            try {
+                c.getDeclaredMethod(itemBlackListMethodNames[i], itemBlackListMethodParams[i]);
+                return true;
+            } catch (Throwable ignored) {}
+        }
+        return false;
+    }
+
+    private static boolean overridesStackAttributes(Class<?> c) {
+        if (c == null || c == Item.class) {
+            return false;
+        }
+        Boolean result = stackAttributeClasses.get(c);
+        if (result == null) {
+            try {
+                c.getDeclaredMethod("getAttributeModifiers", ItemStack.class); // Added by Forge
+                result = true;
+            } catch (Throwable ignored) {
+                result = overridesStackAttributes(c.getSuperclass());
+            }
+            stackAttributeClasses.put(c, result);
+        }
+        return result;
+    }
+
+    private static int compute(Item item) {
+        int mask = 0;
+        if (item instanceof ItemBow) mask |= BOW;
+        if (item instanceof ISpecialBow) mask |= BOW | SPECIAL_BOW;
+        if (item instanceof ItemBlock) mask |= BLOCK;
+        if ((mask & (BOW | BLOCK)) != 0 || item instanceof ItemFlintAndSteel
+                || item instanceof ItemFireball
+                || item instanceof ItemBucket
+                || item instanceof ItemSnowball
+                || item instanceof ItemEnderPearl)
+            mask |= COMMONLY_USABLE;
+        if (item instanceof IShield) mask |= SHIELD;
+        if (item instanceof IArrowCatcher) mask |= ARROW_CATCHER;
+        if (item instanceof IArrowContainer2) mask |= ARROW_CONTAINER;
+        if (item instanceof IBattlegearWeapon) mask |= BATTLEGEAR_WEAPON;
+        if (item instanceof IUsableItem) mask |= USABLE;
+        if (item instanceof IAllowItem) mask |= ALLOW_OFFHAND;
+        if (item instanceof IOffhandDual) mask |= OFFHAND_DUAL;
+        if (item instanceof IOffhandWield) mask |= OFFHAND_WIELD;
+        if (item instanceof IOffhandListener) mask |= OFFHAND_LISTENER;
+        if (item instanceof IHandListener) mask |= HAND_LISTENER;
+        if (item instanceof IExtendedReachWeapon) mask |= EXTENDED_REACH;
+        if (item instanceof IBackStabbable) mask |= BACK_STABBABLE;
+        if (item instanceof ISpecialEffect) mask |= SPECIAL_EFFECT;
+        if (item instanceof IPotionEffect) mask |= POTION_EFFECT;
+        if (item instanceof IHitTimeModifier) mask |= HIT_TIME_MODIFIER;
+        if (item instanceof IPenetrateWeapon) mask |= PENETRATE;
+        if (overridesRightClick(item.getClass())) mask |= RIGHT_CLICK;
+        if (overridesStackAttributes(item.getClass())) mask |= STACK_ATTRIBUTES;
+        return mask;
+    }
+}
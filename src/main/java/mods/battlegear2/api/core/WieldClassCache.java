@@ -0,0 +1,220 @@
+package mods.battlegear2.api.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+import mods.battlegear2.api.weapons.WeaponRegistry;
+
+/**
+ * Bounded memory of the wielding classification computed by {@link BattlegearUtils} for each stack. Stacks are
+ * identified by their item, damage and NBT, the wear of damageable items being ignored unless it can change the result.
+ * Lookups don't lock: results are stored in a concurrent map, which is replaced by an empty one once the capacity is
+ * reached, or when the {@link WeaponRegistry} or the ore dictionary changes.
+ */
+public final class WieldClassCache {
+
+    /**
+     * Generic weapon, see {@link BattlegearUtils#isWeapon(ItemStack)}
+     */
+    public static final int WEAPON = 1;
+    /**
+     * Generic weapon, allowed in mainhand
+     */
+    public static final int MAINHAND = 1 << 1;
+    /**
+     * Generic weapon, allowed in offhand
+     */
+    public static final int OFFHAND = 1 << 2;
+    /**
+     * "Usable" item, by its use action or by {@link BattlegearUtils#isCommonlyUsable(Item)}
+     */
+    public static final int USAGE_PRIOR_ATTACK = 1 << 3;
+    /**
+     * Registered as used over attack in mainhand
+     */
+    public static final int USE_MAINHAND = 1 << 4;
+    /**
+     * Registered as used over attack in offhand
+     */
+    public static final int USE_OFFHAND = 1 << 5;
+    /**
+     * The item is commonly usable
+     */
+    public static final int COMMONLY_USABLE = 1 << 6;
+
+    private static final Object lock = new Object();
+    private static volatile int capacity = 2048;
+    private static volatile Generation generation = new Generation(WeaponRegistry.getRevision());
+    /**
+     * A key reused by each thread for lookups, to not allocate one per query
+     */
+    private static final ThreadLocal<Key> probes = new ThreadLocal<Key>() {
+
+        @Override
+        protected Key initialValue() {
+            return new Key();
+        }
+    };
+    private static final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+
+    private WieldClassCache() {}
+
+    /**
+     * @param stack the non-null stack to search for
+     * @return the classification flags stored for an equivalent stack, or -1 if unknown
+     */
+    public static int get(ItemStack stack) {
+        Generation current = generation;
+        Integer flags = null;
+        if (current.revision == WeaponRegistry.getRevision()) {
+            Key probe = probes.get();
+            probe.set(stack, false);
+            flags = current.results.get(probe);
+            probe.clear();
+        }
+        if (flags != null) {
+            hits.incrementAndGet();
+            return flags;
+        }
+        misses.incrementAndGet();
+        return -1;
+    }
+
+    /**
+     * Store the classification flags for the given stack
+     *
+     * @param stack the non-null stack that was classified
+     * @param flags the result of the classification
+     */
+    public static void put(ItemStack stack, int flags) {
+        Key key = new Key();
+        key.set(stack, true);
+        Generation current = generation;
+        int revision = WeaponRegistry.getRevision();
+        if (current.revision != revision || current.results.size() >= capacity) {
+            synchronized (lock) {
+                current = generation;
+                if (current.revision != revision || current.results.size() >= capacity) {
+                    current = new Generation(revision);
+                    generation = current;
+                }
+            }
+        }
+        current.results.put(key, flags);
+    }
+
+    /**
+     * Forget every stored classification, for example when the ore dictionary changes
+     */
+    public static void invalidate() {
+        synchronized (lock) {
+            generation = new Generation(WeaponRegistry.getRevision());
+        }
+    }
+
+    /**
+     * @param size the maximum number of stacks to remember, at least 1
+     */
+    public static void setCapacity(int size) {
+        synchronized (lock) {
+            capacity = Math.max(1, size);
+            if (generation.results.size() > capacity) {
+                generation = new Generation(WeaponRegistry.getRevision());
+            }
+        }
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static int size() {
+        return generation.results.size();
+    }
+
+    /**
+     * The results stored for one revision of the {@link WeaponRegistry}
+     */
+    private static final class Generation {
+
+        private final int revision;
+        private final ConcurrentMap<Key, Integer> results = new ConcurrentHashMap<Key, Integer>(64);
+
+        private Generation(int revision) {
+            this.revision = revision;
+        }
+    }
+
+    /**
+     * Identifies a stack by item, damage and NBT. The tag hash acts as a fingerprint, the tag itself is only compared
+     * when fingerprints are equal
+     */
+    private static final class Key {
+
+        private Item item;
+        private int damage;
+        private NBTTagCompound tag;
+        private int hash;
+
+        /**
+         * @param stored if the key is kept in the map, and needs its own copy of the tag
+         */
+        private void set(ItemStack stack, boolean stored) {
+            this.item = stack.getItem();
+            this.damage = damage(stack);
+            NBTTagCompound compound = stack.getTagCompound();
+            this.tag = stored && compound != null ? (NBTTagCompound) compound.copy() : compound;
+            int fingerprint = compound != null ? compound.hashCode() : 0;
+            this.hash = (31 * System.identityHashCode(item) + damage) * 31 + fingerprint;
+        }
+
+        /**
+         * Forget the probed stack, so it can be collected
+         */
+        private void clear() {
+            item = null;
+            tag = null;
+        }
+
+        /**
+         * Wear of damageable stacks changes with every hit, it is only part of the key when the registry compares it
+         * for this item, or when the item computes its modifiers from the stack
+         */
+        private static int damage(ItemStack stack) {
+            if (stack.isItemStackDamageable()
+                    && !ItemCapabilities.has(stack.getItem(), ItemCapabilities.STACK_ATTRIBUTES)
+                    && !WeaponRegistry.isDamageSensitive(stack.getItem())) {
+                return 0;
+            }
+            return stack.getItemDamage();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && item == other.item
+                    && damage == other.damage
+                    && (tag == null ? other.tag == null : tag.equals(other.tag));
+        }
+    }
+}
@@ -14,7 +14,12 @@ import net.minecraft.util.ResourceLocation;
 
 public class PatternStore {
 
-    public static final IResourceManager rm = Minecraft.getMinecraft().getResourceManager();
+    /**
+     * The client resources, null when there is no client, such as on a server or in benchmarks
+     */
+    public static final IResourceManager rm = Minecraft.getMinecraft() != null
+            ? Minecraft.getMinecraft().getResourceManager()
+            : null;
     public static final PatternStore DEFAULT = new PatternStore(8, 4);
     private final int IMAGES_X;
     private final int IMAGES_Y;
@@ -1,11 +1,16 @@
 package mods.battlegear2.api.quiver;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
 
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
@@ -14,27 +19,29 @@ import net.minecraft.init.Items;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemBow;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.world.World;
 
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterators;
+import com.google.common.base.Throwables;
 
 import mods.battlegear2.api.ISensible;
 import mods.battlegear2.api.core.IInventoryPlayerBattle;
+import mods.battlegear2.api.core.ItemCapabilities;
+import mods.battlegear2.api.shield.ShieldType;
 import mods.battlegear2.items.ItemQuiver;
 
 public class QuiverArrowRegistry {
 
-    private static Map<Item, Class<? extends EntityArrow>> itemToClasses = new HashMap<Item, Class<? extends EntityArrow>>();
-    private static Map<ItemStack, Class<? extends EntityArrow>> stackToClasses = new TreeMap<ItemStack, Class<? extends EntityArrow>>(
-            new StackComparator());
-    private static Map<Class<? extends EntityArrow>, ItemStack> classToStacks = new HashMap<Class<? extends EntityArrow>, ItemStack>();
-    private static List<IQuiverSelection> quiverSelectors = new ArrayList<IQuiverSelection>();
-    private static List<IArrowFireHandler> fireHandlers = new ArrayList<IArrowFireHandler>();
-
-    static {
-        fireHandlers.add(new DefaultArrowFire());
-    }
+    private static final MethodType FIRED_ARROW = MethodType
+            .methodType(EntityArrow.class, World.class, EntityLivingBase.class, float.class);
+    private static final Object writeLock = new Object();
+    /**
+     * The registered arrows, replaced as a whole by writers so readers never need to lock
+     */
+    private static volatile Arrows arrows = new Arrows();
+    private static volatile List<IQuiverSelection> quiverSelectors = Collections.emptyList();
+    private static volatile List<IArrowFireHandler> fireHandlers = Collections
+            .<IArrowFireHandler>singletonList(new DefaultArrowFire());
 
     /**
      * Adds an item to the known arrow lists, not metadata sensitive
@@ -42,10 +49,16 @@ public class QuiverArrowRegistry {
      * @param itemId      the item id
      * @param entityArrow the class from which the arrow entity will be constructed by the default fire handler (can be
      *                    null, if custom fire handler is desired)
+     * @throws IllegalArgumentException if the class has no public (World, EntityLivingBase, float) constructor
      */
     public static void addArrowToRegistry(Item itemId, Class<? extends EntityArrow> entityArrow) {
-        itemToClasses.put(itemId, entityArrow);
-        if (entityArrow != null) classToStacks.put(entityArrow, new ItemStack(itemId));
+        MethodHandle factory = bindFactory(entityArrow);
+        synchronized (writeLock) {
+            Arrows next = new Arrows(arrows, entityArrow, factory);
+            next.itemToClasses.put(itemId, entityArrow);
+            if (entityArrow != null) next.classToStacks.put(entityArrow, new ItemStack(itemId));
+            arrows = next;
+        }
     }
 
     /**
@@ -55,6 +68,7 @@ public class QuiverArrowRegistry {
      * @param itemMetadata the item damage value, as metadata
      * @param entityArrow  the class from which the arrow entity will be constructed by the default fire handler (can be
      *                     null, if custom fire handler is desired)
+     * @throws IllegalArgumentException if the class has no public (World, EntityLivingBase, float) constructor
      */
     public static void addArrowToRegistry(Item itemId, int itemMetadata, Class<? extends EntityArrow> entityArrow) {
         ItemStack stack = new ItemStack(itemId, 1, itemMetadata);
@@ -80,12 +94,46 @@ public class QuiverArrowRegistry {
      * @param stack       holding the arrow
      * @param entityArrow the class from which the arrow entity will be constructed by {@link DefaultArrowFire} (can be
      *                    null, if custom fire handler is desired)
+     * @throws IllegalArgumentException if the class has no public (World, EntityLivingBase, float) constructor
      */
     public static void addArrowToRegistry(ItemStack stack, Class<? extends EntityArrow> entityArrow) {
+        MethodHandle factory = bindFactory(entityArrow);
         ItemStack st = stack.copy();
         st.stackSize = 1;
-        stackToClasses.put(st, entityArrow);
-        if (entityArrow != null) classToStacks.put(entityArrow, st);
+        synchronized (writeLock) {
+            Arrows next = new Arrows(arrows, entityArrow, factory);
+            next.putStack(st, entityArrow);
+            if (entityArrow != null) next.classToStacks.put(entityArrow, st);
+            arrows = next;
+        }
+    }
+
+    /**
+     * Resolved outside of the write lock, so a missing constructor fails before anything is published
+     */
+    private static MethodHandle bindFactory(Class<? extends EntityArrow> entityArrow) {
+        if (entityArrow == null) return null;
+        MethodHandle factory = arrows.arrowFactories.get(entityArrow);
+        return factory != null ? factory : getArrowConstructor(entityArrow, FIRED_ARROW);
+    }
+
+    /**
+     * Resolve a public constructor of an arrow class once, to build entities without reflection afterwards
+     *
+     * @param entityArrow the arrow class
+     * @param type        the constructor parameters, with the return type expected by the callers
+     * @return a handle to the constructor, adapted to the given type
+     * @throws IllegalArgumentException if no such public constructor exists
+     */
+    public static MethodHandle getArrowConstructor(Class<? extends EntityArrow> entityArrow, MethodType type) {
+        try {
+            return MethodHandles.publicLookup().findConstructor(entityArrow, type.changeReturnType(void.class))
+                    .asType(type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(
+                    entityArrow.getName() + " has no public constructor with parameters " + type.parameterList(),
+                    e);
+        }
     }
 
     /**
@@ -98,7 +146,9 @@ public class QuiverArrowRegistry {
      */
     public static boolean addQuiverSelection(IQuiverSelection handler) {
         if (handler == null) return false;
-        quiverSelectors.add(handler);
+        synchronized (writeLock) {
+            quiverSelectors = append(quiverSelectors, handler);
+        }
         return true;
     }
 
@@ -112,10 +162,19 @@ public class QuiverArrowRegistry {
      */
     public static boolean addArrowFireHandler(IArrowFireHandler handler) {
         if (handler == null) return false;
-        fireHandlers.add(handler);
+        synchronized (writeLock) {
+            fireHandlers = append(fireHandlers, handler);
+        }
         return true;
     }
 
+    private static <T> List<T> append(List<T> list, T element) {
+        List<T> result = new ArrayList<T>(list.size() + 1);
+        result.addAll(list);
+        result.add(element);
+        return Collections.unmodifiableList(result);
+    }
+
     /**
      * Search for an ItemStack whose item is an {@link IArrowContainer2}, to be used either by a compatible mainhand bow
      * or offhand bow
@@ -162,7 +221,10 @@ public class QuiverArrowRegistry {
      */
     public static EntityArrow getArrowType(ItemStack arrow, World world, EntityPlayer player, float charge) {
         EntityArrow result;
-        List<IArrowFireHandler> handlers = getFireHandlers(getSpecialBow(player), arrow, player);
+        List<IArrowFireHandler> handlers = getBowFireHandlers(getSpecialBow(player), arrow, player);
+        if (handlers == null) {
+            handlers = fireHandlers;
+        }
         for (IArrowFireHandler handler : handlers) {
             if (handler.canFireArrow(arrow, world, player, charge)) {
                 result = handler.getFiredArrow(arrow, world, player, charge);
@@ -177,21 +239,24 @@ public class QuiverArrowRegistry {
     // Get first available special bow
     private static ItemStack getSpecialBow(EntityPlayer player) {
         ItemStack bow = player.getHeldItem();
-        if (bow != null && bow.getItem() instanceof ISpecialBow) {
+        if (bow != null && ItemCapabilities.has(bow.getItem(), ItemCapabilities.SPECIAL_BOW)) {
             return bow;
         }
         return ((IInventoryPlayerBattle) player.inventory).battlegear2$getCurrentOffhandWeapon();
     }
 
-    // Allows customization of fire handler list for custom bows
+    // Allows customization of fire handler list for custom bows, the default list being a copy free to modify
     public static List<IArrowFireHandler> getFireHandlers(ItemStack bow, ItemStack arrow, EntityPlayer player) {
-        if (bow != null && bow.getItem() instanceof ISpecialBow) {
-            List<IArrowFireHandler> handlers = ((ISpecialBow) bow.getItem()).getFireHandlers(arrow, bow, player);
-            if (handlers != null) {
-                return handlers;
-            }
+        List<IArrowFireHandler> handlers = getBowFireHandlers(bow, arrow, player);
+        return handlers != null ? handlers : new ArrayList<IArrowFireHandler>(fireHandlers);
+    }
+
+    // Fire handler list of a custom bow, or null to use the registered ones
+    private static List<IArrowFireHandler> getBowFireHandlers(ItemStack bow, ItemStack arrow, EntityPlayer player) {
+        if (bow != null && ItemCapabilities.has(bow.getItem(), ItemCapabilities.SPECIAL_BOW)) {
+            return ((ISpecialBow) bow.getItem()).getFireHandlers(arrow, bow, player);
         }
-        return fireHandlers;
+        return null;
     }
 
     /**
@@ -199,9 +264,12 @@ public class QuiverArrowRegistry {
      * @return the EntityArrow class attached to the given stack, or null if none is found
      */
     public static Class<? extends EntityArrow> getArrowClass(ItemStack stack) {
-        Class<? extends EntityArrow> clazz = stackToClasses.get(stack);
+        Arrows current = arrows;
+        ArrowKey probe = ArrowKey.probe(stack);
+        Class<? extends EntityArrow> clazz = current.stackToClasses.get(probe);
+        probe.clear();
         if (clazz != null) return clazz;
-        else return itemToClasses.get(stack.getItem());
+        else return current.itemToClasses.get(stack.getItem());
     }
 
     /**
@@ -209,7 +277,7 @@ public class QuiverArrowRegistry {
      * @return an ItemStack attached to the given EntityArrow class, defaults to vanilla arrow
      */
     public static ItemStack getItem(Class<? extends EntityArrow> clazz) {
-        ItemStack temp = classToStacks.get(clazz);
+        ItemStack temp = arrows.classToStacks.get(clazz);
         if (temp == null) {
             return new ItemStack(Items.arrow);
         } else {
@@ -235,60 +303,164 @@ public class QuiverArrowRegistry {
      * @return true if that ItemStack has been registered
      */
     public static boolean isKnownArrow(ItemStack test, boolean compareFullStack) {
-        return test != null
-                && (compareFullStack ? stackToClasses.containsKey(test) : itemToClasses.containsKey(test.getItem()));
+        if (test == null) return false;
+        if (!compareFullStack) return arrows.itemToClasses.containsKey(test.getItem());
+        ArrowKey probe = ArrowKey.probe(test);
+        boolean known = arrows.stackToClasses.containsKey(probe);
+        probe.clear();
+        return known;
     }
 
     /**
-     * Check if the given ItemStack has been registered
+     * Check if the given ItemStack has been registered. Comparing only by {@link ShieldType.IDSensible} is answered
+     * from the index, other comparisons are checked against every stack registered with NBT sensitivity.
      *
      * @param test   the ItemStack to check
      * @param senses defines the meaningful ItemStack differences for the identification
      * @return true if a known similarity has been found
      */
     public static boolean isKnownArrow(ItemStack test, Iterable<ISensible<ItemStack>> senses) {
-        Predicate<ItemStack> predicate = new ISensible.Filter<ItemStack>(test, senses);
-        return Iterators.any(stackToClasses.keySet().iterator(), predicate);
+        if (test == null) return false;
+        Arrows current = arrows;
+        Iterator<ISensible<ItemStack>> iterator = senses.iterator();
+        if (iterator.hasNext() && iterator.next() == ShieldType.IDSensible.INSTANCE && !iterator.hasNext()) {
+            return current.stackItems.contains(test.getItem());
+        }
+        return isKnownArrow(current, test, senses);
+    }
+
+    private static boolean isKnownArrow(Arrows current, ItemStack test, Iterable<ISensible<ItemStack>> senses) {
+        search: for (ArrowKey key : current.stackToClasses.keySet()) {
+            for (ISensible<ItemStack> sense : senses) {
+                if (sense.differenciate(key.stack, test)) {
+                    continue search;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The arrow lookups at one point in time. A writer fills a copy of the previous instance under the write lock,
+     * then publishes it, after which it is never modified.
+     */
+    private static final class Arrows {
+
+        private final Map<Item, Class<? extends EntityArrow>> itemToClasses;
+        /**
+         * The NBT sensitive registrations, by item, damage and tag
+         */
+        private final Map<ArrowKey, Class<? extends EntityArrow>> stackToClasses;
+        /**
+         * The items of {@link #stackToClasses} keys, for lookups that only compare items
+         */
+        private final Set<Item> stackItems;
+        private final Map<Class<? extends EntityArrow>, ItemStack> classToStacks;
+        /**
+         * The (World, EntityLivingBase, float) constructors of registered arrow classes, used by
+         * {@link DefaultArrowFire}
+         */
+        private final Map<Class<? extends EntityArrow>, MethodHandle> arrowFactories;
+
+        private Arrows() {
+            itemToClasses = new HashMap<Item, Class<? extends EntityArrow>>();
+            stackToClasses = new HashMap<ArrowKey, Class<? extends EntityArrow>>();
+            stackItems = new HashSet<Item>();
+            classToStacks = new HashMap<Class<? extends EntityArrow>, ItemStack>();
+            arrowFactories = new HashMap<Class<? extends EntityArrow>, MethodHandle>();
+        }
+
+        private Arrows(Arrows previous, Class<? extends EntityArrow> entityArrow, MethodHandle factory) {
+            itemToClasses = new HashMap<Item, Class<? extends EntityArrow>>(previous.itemToClasses);
+            stackToClasses = new HashMap<ArrowKey, Class<? extends EntityArrow>>(previous.stackToClasses);
+            stackItems = new HashSet<Item>(previous.stackItems);
+            classToStacks = new HashMap<Class<? extends EntityArrow>, ItemStack>(previous.classToStacks);
+            arrowFactories = new HashMap<Class<? extends EntityArrow>, MethodHandle>(previous.arrowFactories);
+            if (factory != null) arrowFactories.put(entityArrow, factory);
+        }
+
+        private void putStack(ItemStack stack, Class<? extends EntityArrow> entityArrow) {
+            stackToClasses.put(new ArrowKey(stack), entityArrow);
+            stackItems.add(stack.getItem());
+        }
     }
 
     /**
-     * Tool class to compare ItemStack, since this class is final but doesn't implement the necessary method
+     * Identifies a stack by its item instance, damage and tag. The tag hash only selects the bucket, equality compares
+     * the whole tag, so stacks whose tags collide stay apart.
      */
-    static class StackComparator implements Comparator<ItemStack> {
+    private static final class ArrowKey {
+
+        /**
+         * A key reused by each thread for lookups, to not allocate one per query
+         */
+        private static final ThreadLocal<ArrowKey> PROBES = new ThreadLocal<ArrowKey>() {
+
+            @Override
+            protected ArrowKey initialValue() {
+                return new ArrowKey();
+            }
+        };
+
+        private ItemStack stack;
+        private NBTTagCompound tag;
+        private int hash;
+
+        private ArrowKey() {}
+
+        private ArrowKey(ItemStack stack) {
+            set(stack);
+        }
+
+        /**
+         * @return the lookup key of this thread set to the given stack, to {@link #clear()} once done
+         */
+        private static ArrowKey probe(ItemStack stack) {
+            ArrowKey probe = PROBES.get();
+            probe.set(stack);
+            return probe;
+        }
+
+        private void set(ItemStack stack) {
+            this.stack = stack;
+            this.tag = stack.getTagCompound();
+            this.hash = 31 * (31 * System.identityHashCode(stack.getItem()) + stack.getItemDamage())
+                    + (tag != null ? tag.hashCode() : 0);
+        }
+
+        /**
+         * Forget the probed stack, so it can be collected
+         */
+        private void clear() {
+            stack = null;
+            tag = null;
+        }
 
         @Override
-        public int compare(ItemStack stack, ItemStack stack2) {
-            if (stack == stack2) {
-                return 0;
-            } else {
-
-                int idDiff = stack.getItemDamage() - stack2.getItemDamage();
-                if (idDiff != 0) {
-                    return idDiff;
-                } else {
-                    idDiff = Item.getIdFromItem(stack.getItem()) - Item.getIdFromItem(stack2.getItem());
-                    if (idDiff != 0) {
-                        return idDiff;
-                    } else {
-                        int tag = 0;
-                        if (stack.hasTagCompound()) {
-                            tag = stack.getTagCompound().hashCode();
-                        }
-                        int tag2 = 0;
-                        if (stack2.hasTagCompound()) {
-                            tag2 = stack2.getTagCompound().hashCode();
-                        }
-                        return tag - tag2;
-                    }
-                }
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof ArrowKey)) {
+                return false;
             }
+            ArrowKey key = (ArrowKey) object;
+            return hash == key.hash && stack.getItem() == key.stack.getItem()
+                    && stack.getItemDamage() == key.stack.getItemDamage()
+                    && (tag == null ? key.tag == null : tag.equals(key.tag));
         }
     }
 
     /**
      * Default implementation of a arrow firing handler, which uses this registry of arrows to build an EntityArrow from
-     * registered class, with the (World, EntityLivingBase, float) constructor If the arrow is unknown, the registered
-     * class is null or the constructor isn't valid, defers to other firing handlers silently
+     * registered class, with the (World, EntityLivingBase, float) constructor resolved at registration If the arrow is
+     * unknown or the registered class is null, defers to other firing handlers silently
      */
     public static class DefaultArrowFire implements IArrowFireHandler {
 
@@ -300,11 +472,13 @@ public class QuiverArrowRegistry {
         @Override
         public EntityArrow getFiredArrow(ItemStack arrow, World world, EntityPlayer player, float charge) {
             Class<? extends EntityArrow> clazz = getArrowClass(arrow);
-            if (clazz != null) {
+            MethodHandle factory = clazz != null ? arrows.arrowFactories.get(clazz) : null;
+            if (factory != null) {
                 try {
-                    return clazz.getConstructor(World.class, EntityLivingBase.class, Float.TYPE)
-                            .newInstance(player.worldObj, player, charge);
-                } catch (Exception ignored) {}
+                    return (EntityArrow) factory.invokeExact(player.worldObj, (EntityLivingBase) player, charge);
+                } catch (Throwable thrown) {
+                    Throwables.propagateIfInstanceOf(thrown, Error.class);
+                }
             }
             return null;
         }
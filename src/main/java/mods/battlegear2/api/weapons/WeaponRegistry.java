@@ -1,13 +1,16 @@
 package mods.battlegear2.api.weapons;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraftforge.oredict.OreDictionary;
 
@@ -25,18 +28,25 @@ import mods.battlegear2.api.StackHolder;
  * Registry for stacks which will be allowed in battle inventory, accessible through {@link FMLInterModComms} messages.
  * Use only if your item is not recognized by default. Use of {@link IBattlegearWeapon} or {@link IUsableItem} are
  * preferred over this method. {@link NBTTagCompound} are supported by default, though can be bypassed through
- * /weaponwield sensitivity command by server op
+ * /weaponwield sensitivity command by server op. Changes publish a new immutable snapshot, so lookups are lock free
+ * from any thread.
  *
  * @author GotoLink
  */
 public class WeaponRegistry {
 
-    private static Map<StackHolder, Pair<Wield, Boolean>> wielding = new HashMap<StackHolder, Pair<Wield, Boolean>>();
-    private static Set<ISensible<StackHolder>> sensitivities = Sets.newHashSetWithExpectedSize(3);
-
-    static {
-        Collections.addAll(sensitivities, Sensitivity.ID, Sensitivity.DAMAGE, Sensitivity.NBT);
-    }
+    private static final Object writeLock = new Object();
+    /**
+     * The current state of the registry, replaced as a whole by writers so readers never need to lock
+     */
+    private static volatile Snapshot snapshot = new Snapshot(
+            Collections.<StackHolder, Pair<Wield, Boolean>>emptyMap(),
+            Sets.<ISensible<StackHolder>>newHashSet(Sensitivity.ID, Sensitivity.DAMAGE, Sensitivity.NBT),
+            0);
+    /**
+     * The state set up by mods, before any world specific change
+     */
+    private static volatile Snapshot defaults;
 
     /**
      * Called by a {@link FMLInterModComms.IMCMessage} with key as type, and the {@link ItemStack} as value
@@ -46,17 +56,26 @@ public class WeaponRegistry {
      * @param stack registered as either dual-wieldable, wieldable only in mainhand or in offhand
      */
     public static boolean setWeapon(String type, ItemStack stack) {
+        Wield wield = getWield(type);
+        return wield != null && wield.setWeapon(stack);
+    }
+
+    /**
+     * @param type the key from a {@link FMLInterModComms.IMCMessage}, see {@link #setWeapon(String, ItemStack)}
+     * @return the matching way to wield, or null if the type is unknown
+     */
+    public static Wield getWield(String type) {
         if (type.equalsIgnoreCase("Dual")) {
-            return Wield.BOTH.setWeapon(stack);
+            return Wield.BOTH;
         } else if (type.equalsIgnoreCase("MainHand")) {
-            return Wield.RIGHT.setWeapon(stack);
+            return Wield.RIGHT;
         } else if (type.equalsIgnoreCase("OffHand")) {
-            return Wield.LEFT.setWeapon(stack);
+            return Wield.LEFT;
         } else {
             try {
-                return Wield.valueOf(type.toUpperCase(Locale.ENGLISH)).setWeapon(stack);
+                return Wield.valueOf(type.toUpperCase(Locale.ENGLISH));
             } catch (IllegalArgumentException ignored) {
-                return false;
+                return null;
             }
         }
     }
@@ -65,21 +84,87 @@ public class WeaponRegistry {
      * Helper method to set an {@link ItemStack} as dual-wieldable
      */
     public static void addDualWeapon(ItemStack stack) {
-        wielding.put(new StackHolder(stack), Pair.of(Wield.BOTH, false));
+        register(stack, Wield.BOTH, false);
     }
 
     /**
      * Helper method to set an {@link ItemStack} as wieldable only in mainhand
      */
     public static void addTwoHanded(ItemStack stack) {
-        wielding.put(new StackHolder(stack), Pair.of(Wield.RIGHT, false));
+        register(stack, Wield.RIGHT, false);
     }
 
     /**
      * Helper method to set an {@link ItemStack} as wieldable only in offhand
      */
     public static void addOffhandWeapon(ItemStack stack) {
-        wielding.put(new StackHolder(stack), Pair.of(Wield.LEFT, false));
+        register(stack, Wield.LEFT, false);
+    }
+
+    /**
+     * Publishes a new snapshot with the wield settings for a copy of the given {@link ItemStack}, prefer
+     * {@link #registerAll(Map)} for many stacks
+     */
+    private static void register(ItemStack stack, Wield wield, boolean usable) {
+        StackHolder holder = new StackHolder(stack.copy());
+        Pair<Wield, Boolean> value = Pair.of(wield, usable);
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Map<StackHolder, Pair<Wield, Boolean>> wielding = new HashMap<StackHolder, Pair<Wield, Boolean>>(
+                    current.wielding);
+            if (wielding.put(holder, value) != null) { // Replaced an existing value, rebuild the index
+                snapshot = new Snapshot(wielding, current.sensitivities, current.revision + 1);
+            } else {
+                snapshot = new Snapshot(current, wielding, holder.stack, value);
+            }
+        }
+    }
+
+    /**
+     * Register many stacks at once, indexing them into a single new snapshot instead of one per stack
+     *
+     * @param stacks the wield settings and if the stack is used over attack, by stack, which is copied
+     */
+    public static void registerAll(Map<StackHolder, Pair<Wield, Boolean>> stacks) {
+        if (stacks.isEmpty()) return;
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            snapshot = new Snapshot(with(current.wielding, stacks), current.sensitivities, current.revision + 1);
+        }
+    }
+
+    /**
+     * Change the comparisons and register many stacks in a single new snapshot, as done to apply world specific
+     * settings
+     *
+     * @param fromDefaults if the changes made since {@link #markDefaults()} should be forgotten first
+     * @param senses       the {@link Sensitivity} values to activate, the others being deactivated, other comparisons
+     *                     are kept
+     * @param stacks       see {@link #registerAll(Map)}
+     */
+    public static void apply(boolean fromDefaults, Set<Sensitivity> senses,
+            Map<StackHolder, Pair<Wield, Boolean>> stacks) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot, base = fromDefaults && defaults != null ? defaults : current;
+            Set<ISensible<StackHolder>> sensitivities = new HashSet<ISensible<StackHolder>>(base.sensitivities);
+            for (Sensitivity sense : Sensitivity.VALUES) {
+                if (senses.contains(sense)) sensitivities.add(sense);
+                else sensitivities.remove(sense);
+            }
+            snapshot = new Snapshot(with(base.wielding, stacks), sensitivities, current.revision + 1);
+        }
+    }
+
+    /**
+     * @return a copy of the registered stacks with copies of the given ones added
+     */
+    private static Map<StackHolder, Pair<Wield, Boolean>> with(Map<StackHolder, Pair<Wield, Boolean>> wielding,
+            Map<StackHolder, Pair<Wield, Boolean>> stacks) {
+        Map<StackHolder, Pair<Wield, Boolean>> result = new HashMap<StackHolder, Pair<Wield, Boolean>>(wielding);
+        for (Map.Entry<StackHolder, Pair<Wield, Boolean>> entry : stacks.entrySet()) {
+            result.put(new StackHolder(entry.getKey().stack.copy()), entry.getValue());
+        }
+        return result;
     }
 
     /**
@@ -89,7 +174,15 @@ public class WeaponRegistry {
      * @return true if this new comparison could be added
      */
     public static boolean addSensitivity(ISensible<StackHolder> sensitivity) {
-        return sensitivities.add(sensitivity);
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Set<ISensible<StackHolder>> sensitivities = new HashSet<ISensible<StackHolder>>(current.sensitivities);
+            if (sensitivities.add(sensitivity)) {
+                snapshot = new Snapshot(current.wielding, sensitivities, current.revision + 1);
+                return true;
+            }
+            return false;
+        }
     }
 
     /**
@@ -99,7 +192,60 @@ public class WeaponRegistry {
      * @return true if this comparison has been removed
      */
     public static boolean removeSensitivity(ISensible<StackHolder> sensitivity) {
-        return sensitivities.remove(sensitivity);
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Set<ISensible<StackHolder>> sensitivities = new HashSet<ISensible<StackHolder>>(current.sensitivities);
+            if (sensitivities.remove(sensitivity)) {
+                snapshot = new Snapshot(current.wielding, sensitivities, current.revision + 1);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Check if the damage of a stack can change the result of the lookups in this registry, which is the case when
+     * stacks of the item are registered and a comparison that depends on the damage is active
+     *
+     * @param item the item of the stack
+     * @return false if stacks of the item are registered or not regardless of their damage
+     */
+    public static boolean isDamageSensitive(Item item) {
+        Snapshot current = snapshot;
+        if ((current.senseMask & (Sensitivity.DAMAGE.mask() | Sensitivity.ORE.mask())) == 0
+                && current.customSenses.length == 0) {
+            return false;
+        }
+        return (current.senseMask & Sensitivity.ID.mask()) != 0 ? current.index.containsKey(item)
+                : current.allEntries.length > 0;
+    }
+
+    /**
+     * Used to invalidate results derived from this registry, like cached classifications
+     *
+     * @return a value that changes each time a stack or a comparison is added or removed
+     */
+    public static int getRevision() {
+        return snapshot.revision;
+    }
+
+    /**
+     * Remember the current state as the one set up by mods, to be restored by {@link #restoreDefaults()}
+     */
+    public static void markDefaults() {
+        defaults = snapshot;
+    }
+
+    /**
+     * Forget the changes made since {@link #markDefaults()}, like the settings of a previously joined world
+     */
+    public static void restoreDefaults() {
+        synchronized (writeLock) {
+            Snapshot current = snapshot, initial = defaults;
+            if (initial != null && current != initial) {
+                snapshot = new Snapshot(initial.wielding, initial.sensitivities, current.revision + 1);
+            }
+        }
     }
 
     /**
@@ -109,9 +255,7 @@ public class WeaponRegistry {
      * @return true if an equivalent stack as been found in this registry
      */
     public static boolean isWeapon(ItemStack stack) {
-        StackHolder holder = new StackHolder(stack);
-        if (sensitivities == null) return wielding.containsKey(holder);
-        else return isWeapon(holder, sensitivities.iterator());
+        return snapshot.find(stack, false, false, false) != null;
     }
 
     /**
@@ -123,7 +267,7 @@ public class WeaponRegistry {
      */
     public static boolean isWeapon(StackHolder holder, Iterator<ISensible<StackHolder>> itr) {
         final Predicate<StackHolder> filter = new ISensible.Filter<StackHolder>(holder, itr);
-        return Iterators.any(wielding.keySet().iterator(), filter);
+        return Iterators.any(snapshot.wielding.keySet().iterator(), filter);
     }
 
     /**
@@ -133,11 +277,7 @@ public class WeaponRegistry {
      * @return true if an equivalent mainhand-wieldable stack as been found in this registry
      */
     public static boolean isMainHand(ItemStack stack) {
-        StackHolder holder = new StackHolder(stack);
-        if (sensitivities == null) {
-            Pair<Wield, Boolean> w = wielding.get(holder);
-            return w != null && w.getLeft().isMainhand();
-        } else return isMainHand(holder, sensitivities.iterator());
+        return snapshot.find(stack, true, false, false) != null;
     }
 
     /**
@@ -149,8 +289,9 @@ public class WeaponRegistry {
      */
     public static boolean isMainHand(StackHolder holder, Iterator<ISensible<StackHolder>> itr) {
         final Predicate<StackHolder> filter = new ISensible.Filter<StackHolder>(holder, itr);
-        return Iterators
-                .any(wielding.entrySet().iterator(), new Predicate<Map.Entry<StackHolder, Pair<Wield, Boolean>>>() {
+        return Iterators.any(
+                snapshot.wielding.entrySet().iterator(),
+                new Predicate<Map.Entry<StackHolder, Pair<Wield, Boolean>>>() {
 
                     @Override
                     public boolean apply(Map.Entry<StackHolder, Pair<Wield, Boolean>> input) {
@@ -166,11 +307,7 @@ public class WeaponRegistry {
      * @return true if an equivalent offhand-wieldable stack as been found in this registry
      */
     public static boolean isOffHand(ItemStack stack) {
-        StackHolder holder = new StackHolder(stack);
-        if (sensitivities == null) {
-            Pair<Wield, Boolean> w = wielding.get(holder);
-            return w != null && w.getLeft().isOffhand();
-        } else return isOffHand(holder, sensitivities.iterator());
+        return snapshot.find(stack, false, true, false) != null;
     }
 
     /**
@@ -182,8 +319,9 @@ public class WeaponRegistry {
      */
     public static boolean isOffHand(StackHolder holder, Iterator<ISensible<StackHolder>> itr) {
         final Predicate<StackHolder> filter = new ISensible.Filter<StackHolder>(holder, itr);
-        return Iterators
-                .any(wielding.entrySet().iterator(), new Predicate<Map.Entry<StackHolder, Pair<Wield, Boolean>>>() {
+        return Iterators.any(
+                snapshot.wielding.entrySet().iterator(),
+                new Predicate<Map.Entry<StackHolder, Pair<Wield, Boolean>>>() {
 
                     @Override
                     public boolean apply(Map.Entry<StackHolder, Pair<Wield, Boolean>> input) {
@@ -193,18 +331,15 @@ public class WeaponRegistry {
     }
 
     public static boolean useOverAttack(ItemStack stack, boolean inOffhand) {
-        StackHolder holder = new StackHolder(stack);
-        if (sensitivities == null) {
-            Pair<Wield, Boolean> w = wielding.get(holder);
-            return w != null && w.getRight() && (inOffhand ? w.getLeft().isOffhand() : w.getLeft().isMainhand());
-        } else return useOverAttack(holder, sensitivities.iterator(), inOffhand);
+        return snapshot.find(stack, !inOffhand, inOffhand, true) != null;
     }
 
     public static boolean useOverAttack(StackHolder holder, Iterator<ISensible<StackHolder>> itr,
             final boolean inOffhand) {
         final Predicate<StackHolder> filter = new ISensible.Filter<StackHolder>(holder, itr);
-        return Iterators
-                .any(wielding.entrySet().iterator(), new Predicate<Map.Entry<StackHolder, Pair<Wield, Boolean>>>() {
+        return Iterators.any(
+                snapshot.wielding.entrySet().iterator(),
+                new Predicate<Map.Entry<StackHolder, Pair<Wield, Boolean>>>() {
 
                     @Override
                     public boolean apply(Map.Entry<StackHolder, Pair<Wield, Boolean>> input) {
@@ -216,47 +351,261 @@ public class WeaponRegistry {
                 });
     }
 
+    @SuppressWarnings("unchecked")
+    private static ISensible<StackHolder>[] newSenseArray(int size) {
+        return new ISensible[size];
+    }
+
+    /**
+     * An immutable state of the registry: the registered stacks, the comparisons, and a lookup index over both. The
+     * index is bucketed by {@link Item} when {@link Sensitivity#ID} is active, each entry caching its canonical hash
+     * for the active {@link Sensitivity} set, so only true candidates get compared.
+     */
+    private static final class Snapshot {
+
+        private final Map<StackHolder, Pair<Wield, Boolean>> wielding;
+        private final Set<ISensible<StackHolder>> sensitivities;
+        private final Map<Item, WieldEntry[]> index;
+        /**
+         * Every entry, used when {@link Sensitivity#ID} isn't active and items can't be told apart by bucket
+         */
+        private final WieldEntry[] allEntries;
+        /**
+         * The active {@link Sensitivity} values, as a bit mask of their ordinals
+         */
+        private final int senseMask;
+        /**
+         * The active comparisons which aren't a {@link Sensitivity}, checked after the indexed ones
+         */
+        private final ISensible<StackHolder>[] customSenses;
+        /**
+         * Incremented on each change of the registered stacks or comparisons
+         */
+        private final int revision;
+
+        /**
+         * Index all the given stacks
+         */
+        private Snapshot(Map<StackHolder, Pair<Wield, Boolean>> wielding, Set<ISensible<StackHolder>> sensitivities,
+                int revision) {
+            this.wielding = Collections.unmodifiableMap(wielding);
+            this.sensitivities = Collections.unmodifiableSet(sensitivities);
+            this.revision = revision;
+            int mask = 0, custom = 0;
+            for (ISensible<StackHolder> sense : sensitivities) {
+                if (sense instanceof Sensitivity) mask |= ((Sensitivity) sense).mask();
+                else custom++;
+            }
+            ISensible<StackHolder>[] others = newSenseArray(custom);
+            custom = 0;
+            for (ISensible<StackHolder> sense : sensitivities) {
+                if (!(sense instanceof Sensitivity)) others[custom++] = sense;
+            }
+            this.senseMask = mask;
+            this.customSenses = others;
+            Map<Item, WieldEntry[]> items = new HashMap<Item, WieldEntry[]>();
+            WieldEntry[] all = new WieldEntry[wielding.size()];
+            int i = 0;
+            for (Map.Entry<StackHolder, Pair<Wield, Boolean>> entry : wielding.entrySet()) {
+                ItemStack stack = entry.getKey().stack;
+                all[i] = new WieldEntry(stack, entry.getValue(), canonicalHash(stack));
+                items.put(stack.getItem(), append(items.get(stack.getItem()), all[i++]));
+            }
+            this.index = items;
+            this.allEntries = all;
+        }
+
+        /**
+         * Extend the previous index with a newly registered stack
+         */
+        private Snapshot(Snapshot previous, Map<StackHolder, Pair<Wield, Boolean>> wielding, ItemStack stack,
+                Pair<Wield, Boolean> value) {
+            this.wielding = Collections.unmodifiableMap(wielding);
+            this.sensitivities = previous.sensitivities;
+            this.revision = previous.revision + 1;
+            this.senseMask = previous.senseMask;
+            this.customSenses = previous.customSenses;
+            WieldEntry entry = new WieldEntry(stack, value, canonicalHash(stack));
+            Map<Item, WieldEntry[]> items = new HashMap<Item, WieldEntry[]>(previous.index);
+            items.put(stack.getItem(), append(items.get(stack.getItem()), entry));
+            this.index = items;
+            this.allEntries = append(previous.allEntries, entry);
+        }
+
+        /**
+         * Search the index for an entry equivalent to the given stack under the active sensitivities, which also
+         * matches the requested wield properties
+         *
+         * @param stack    the stack to search for
+         * @param mainhand if the entry needs to be wieldable in mainhand
+         * @param offhand  if the entry needs to be wieldable in offhand
+         * @param usable   if the entry needs to be used over attack
+         * @return the first matching entry, or null if none is found
+         */
+        private WieldEntry find(ItemStack stack, boolean mainhand, boolean offhand, boolean usable) {
+            if (stack == null || stack.getItem() == null) return null;
+            WieldEntry[] bucket = (senseMask & Sensitivity.ID.mask()) != 0 ? index.get(stack.getItem())
+                    : allEntries;
+            if (bucket == null) return null;
+            int hash = canonicalHash(stack);
+            for (WieldEntry entry : bucket) {
+                if (entry.hash == hash && (!mainhand || entry.wield.isMainhand())
+                        && (!offhand || entry.wield.isOffhand())
+                        && (!usable || entry.usable)
+                        && matches(entry.stack, stack)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return true if no active comparison can tell the given stacks apart
+         */
+        private boolean matches(ItemStack registered, ItemStack stack) {
+            for (Sensitivity sense : Sensitivity.VALUES) {
+                if ((senseMask & sense.mask()) != 0 && sense.differs(registered, stack)) {
+                    return false;
+                }
+            }
+            if (customSenses.length > 0) {
+                StackHolder input = new StackHolder(registered), compare = new StackHolder(stack);
+                for (ISensible<StackHolder> sense : customSenses) {
+                    if (sense.differenciate(input, compare)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Combine the hashes of the active {@link Sensitivity} values, so equivalent stacks share the same result.
+         * {@link Sensitivity#ORE} is left out, as ore names can be registered after the stacks, it is only checked by
+         * {@link #matches(ItemStack, ItemStack)}.
+         */
+        private int canonicalHash(ItemStack stack) {
+            int hash = 1;
+            for (Sensitivity sense : Sensitivity.VALUES) {
+                if (sense != Sensitivity.ORE && (senseMask & sense.mask()) != 0) {
+                    hash = 31 * hash + sense.hash(stack);
+                }
+            }
+            return hash;
+        }
+
+        private static WieldEntry[] append(WieldEntry[] array, WieldEntry entry) {
+            if (array == null) return new WieldEntry[] { entry };
+            WieldEntry[] result = Arrays.copyOf(array, array.length + 1);
+            result[array.length] = entry;
+            return result;
+        }
+    }
+
+    /**
+     * An indexed registry entry, with the wield settings unpacked and the canonical hash precomputed
+     */
+    private static final class WieldEntry {
+
+        private final ItemStack stack;
+        private final Wield wield;
+        private final boolean usable;
+        private final int hash;
+
+        private WieldEntry(ItemStack stack, Pair<Wield, Boolean> value, int hash) {
+            this.stack = stack;
+            this.wield = value.getLeft();
+            this.usable = value.getRight();
+            this.hash = hash;
+        }
+    }
+
     /**
      * Commonly used comparisons
      */
     public enum Sensitivity implements ISensible<StackHolder> {
+
         ORE {
 
             @Override
-            public boolean differenciate(StackHolder holder1, StackHolder holder2) {
-                return !Objects
-                        .deepEquals(OreDictionary.getOreIDs(holder1.stack), OreDictionary.getOreIDs(holder2.stack));
+            public boolean differs(ItemStack stack1, ItemStack stack2) {
+                return !Objects.deepEquals(OreDictionary.getOreIDs(stack1), OreDictionary.getOreIDs(stack2));
+            }
+
+            @Override
+            public int hash(ItemStack stack) {
+                return Arrays.hashCode(OreDictionary.getOreIDs(stack));
             }
         },
         TYPE {
 
             @Override
-            public boolean differenciate(StackHolder holder1, StackHolder holder2) {
-                return !holder1.stack.getItem().getClass().equals(holder2.stack.getItem().getClass());
+            public boolean differs(ItemStack stack1, ItemStack stack2) {
+                return !stack1.getItem().getClass().equals(stack2.getItem().getClass());
+            }
+
+            @Override
+            public int hash(ItemStack stack) {
+                return stack.getItem().getClass().hashCode();
             }
         },
         ID {
 
             @Override
-            public boolean differenciate(StackHolder holder1, StackHolder holder2) {
-                return holder1.stack.getItem() != holder2.stack.getItem();
+            public boolean differs(ItemStack stack1, ItemStack stack2) {
+                return stack1.getItem() != stack2.getItem();
+            }
+
+            @Override
+            public int hash(ItemStack stack) {
+                return System.identityHashCode(stack.getItem());
             }
         },
         DAMAGE {
 
             @Override
-            public boolean differenciate(StackHolder holder1, StackHolder holder2) {
-                return holder1.stack.getItemDamage() != holder2.stack.getItemDamage();
+            public boolean differs(ItemStack stack1, ItemStack stack2) {
+                return stack1.getItemDamage() != stack2.getItemDamage();
+            }
+
+            @Override
+            public int hash(ItemStack stack) {
+                return stack.getItemDamage();
             }
         },
         NBT {
 
             @Override
-            public boolean differenciate(StackHolder holder1, StackHolder holder2) {
-                if (holder1.stack.hasTagCompound())
-                    return !holder1.stack.getTagCompound().equals(holder2.stack.getTagCompound());
-                else return holder2.stack.hasTagCompound();
+            public boolean differs(ItemStack stack1, ItemStack stack2) {
+                if (stack1.hasTagCompound()) return !stack1.getTagCompound().equals(stack2.getTagCompound());
+                else return stack2.hasTagCompound();
+            }
+
+            @Override
+            public int hash(ItemStack stack) {
+                return stack.hasTagCompound() ? stack.getTagCompound().hashCode() : 0;
             }
+        };
+
+        private static final Sensitivity[] VALUES = values();
+
+        @Override
+        public boolean differenciate(StackHolder holder1, StackHolder holder2) {
+            return differs(holder1.stack, holder2.stack);
+        }
+
+        /**
+         * @return true if first stack is different from second stack, for this comparison
+         */
+        public abstract boolean differs(ItemStack stack1, ItemStack stack2);
+
+        /**
+         * @return a hash for the given stack, equal for any two stacks this comparison doesn't differentiate
+         */
+        public abstract int hash(ItemStack stack);
+
+        private int mask() {
+            return 1 << ordinal();
         }
     }
 
@@ -290,12 +639,12 @@ public class WeaponRegistry {
         }
 
         public boolean setWeapon(ItemStack stack) {
-            wielding.put(new StackHolder(stack), Pair.of(this, false));
+            register(stack, this, false);
             return true;
         }
 
         public boolean setUsable(ItemStack stack) {
-            wielding.put(new StackHolder(stack), Pair.of(this, true));
+            register(stack, this, true);
             return true;
         }
     }
@@ -38,6 +38,7 @@ import mods.battlegear2.api.core.IOffhandRender;
 import mods.battlegear2.api.quiver.QuiverArrowRegistry;
 import mods.battlegear2.api.shield.IShield;
 import mods.battlegear2.api.weapons.IExtendedReachWeapon;
+import mods.battlegear2.client.utils.ImageCache;
 import mods.battlegear2.enchantments.BaseEnchantment;
 import mods.battlegear2.packet.BattlegearAnimationPacket;
 import mods.battlegear2.packet.BattlegearShieldBlockPacket;
@@ -67,6 +68,16 @@ public final class BattlegearClientTickHandeler {
         mc = FMLClientHandler.instance().getClient();
     }
 
+    /**
+     * Process the packets received since the previous tick, once vanilla packets of the tick are handled
+     */
+    @SubscribeEvent
+    public void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            Battlegear.packetHandler.processPackets(Side.CLIENT);
+        }
+    }
+
     @SubscribeEvent
     public void keyDown(TickEvent.ClientTickEvent event) {
         if (Battlegear.battlegearEnabled) {
@@ -274,6 +285,7 @@ public final class BattlegearClientTickHandeler {
     public void onRenderTick(TickEvent.RenderTickEvent event) {
         if (event.phase == TickEvent.Phase.START) {
             partialTick = event.renderTickTime;
+            ImageCache.onFrameStart();
             if (mc.currentScreen instanceof GuiMainMenu) {
                 Battlegear.battlegearEnabled = false;
             }
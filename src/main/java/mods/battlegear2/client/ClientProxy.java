@@ -79,8 +79,8 @@ public final class ClientProxy extends CommonProxy {
     @Override
     public void sendAnimationPacket(EnumBGAnimations animation, EntityPlayer entityPlayer) {
         if (entityPlayer instanceof EntityClientPlayerMP) {
-            ((EntityClientPlayerMP) entityPlayer).sendQueue
-                    .addToSendQueue(new BattlegearAnimationPacket(animation, entityPlayer).generatePacket());
+            Battlegear.packetHandler
+                    .sendPacketToServer(new BattlegearAnimationPacket(animation, entityPlayer).generatePacket());
         }
     }
 
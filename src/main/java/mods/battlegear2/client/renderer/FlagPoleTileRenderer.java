@@ -1,10 +1,14 @@
 package mods.battlegear2.client.renderer;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockAir;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.GLAllocation;
 import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.client.renderer.texture.TextureMap;
 import net.minecraft.client.renderer.tileentity.TileEntitySpecialRenderer;
@@ -18,12 +22,37 @@ import mods.battlegear2.api.heraldry.IFlagHolder;
 import mods.battlegear2.client.utils.ImageCache;
 
 /**
- * User: nerd-boy Date: 2/08/13 Time: 2:33 PM TODO: Add discription
+ * User: nerd-boy Date: 2/08/13 Time: 2:33 PM
+ * <p>
+ * Poles and flags are compiled into display lists. Waving flags get one list per animation frame, flags far away are
+ * rendered flat, then not at all.
  */
 public class FlagPoleTileRenderer extends TileEntitySpecialRenderer {
 
     public static int period = 250;
     public static int flag_sections = 16;
+    /**
+     * Number of precomputed animation frames over one wave period
+     */
+    public static final int WAVE_FRAMES = 25;
+    /**
+     * Squared distances from the viewer beyond which flags are rendered flat, then hidden
+     */
+    public static double flatFlagDistanceSq = 32 * 32, hiddenFlagDistanceSq = 96 * 96;
+    private static final double[] PHASES = new double[WAVE_FRAMES];
+
+    static {
+        for (int frame = 0; frame < WAVE_FRAMES; frame++) {
+            PHASES[frame] = 2 * Math.PI * frame / WAVE_FRAMES;
+        }
+    }
+
+    private final Map<Block, PoleMesh[]> poles = new HashMap<Block, PoleMesh[]>();
+    /**
+     * Per orientation and flag index, the first of WAVE_FRAMES + 1 consecutive lists: flat, then each frame
+     */
+    private final int[][] flagLists = new int[2][0];
+    private int builtSections = flag_sections;
 
     public static double getZLevel(float x, float size, long time) {
         return Math.pow(x, 0.5 / (size / 5))
@@ -31,6 +60,13 @@ public class FlagPoleTileRenderer extends TileEntitySpecialRenderer {
                 / 4;
     }
 
+    /**
+     * Same as {@link #getZLevel(float, float, long)}, with time taken from the animation frame phase table
+     */
+    public static double getWaveOffset(float x, float size, int frame) {
+        return Math.pow(x, 0.5 / (size / 5)) * Math.sin(Math.PI * (-x / size * 3) + PHASES[frame]) / 4;
+    }
+
     @Override
     public void renderTileEntityAt(TileEntity tileentity, double d0, double d1, double d2, float f) {
 
@@ -52,20 +88,21 @@ public class FlagPoleTileRenderer extends TileEntitySpecialRenderer {
             for (int i = 0; i < 5; i++) {
                 dims[i] = ((IFlagHolder) tileentity).getTextureDimensions(type, i);
             }
+            double distance = d0 * d0 + d1 * d1 + d2 * d2;
             switch (side) {
                 case 0:
-                    renderYFlagPole(banner, f, type, dims);
-                    renderYFlag((IFlagHolder) tileentity, d0, d1, d2, f, type);
+                    renderPole(banner, type, dims, true);
+                    renderYFlag((IFlagHolder) tileentity, distance);
                     break;
                 case 1:
-                    renderZFlagPole(banner, f, type, dims);
-                    renderZFlag((IFlagHolder) tileentity, d0, d1, d2, f, type);
+                    renderPole(banner, type, dims, false);
+                    renderZFlag((IFlagHolder) tileentity, distance);
                     break;
                 case 2:
                     GL11.glRotatef(90, 0, 1, 0);
                     GL11.glTranslatef(-1, 0, 0);
-                    renderZFlagPole(banner, f, type, dims);
-                    renderZFlag((IFlagHolder) tileentity, d0, d1, d2, f, type);
+                    renderPole(banner, type, dims, false);
+                    renderZFlag((IFlagHolder) tileentity, distance);
                     break;
             }
 
@@ -73,11 +110,84 @@ public class FlagPoleTileRenderer extends TileEntitySpecialRenderer {
         }
     }
 
-    private void renderZFlag(IFlagHolder tileentity, double d0, double d1, double d2, float f, int type) {
+    private void renderPole(Block banner, int type, float[] dims, boolean yAxis) {
+        PoleMesh[] meshes = poles.get(banner);
+        if (meshes == null) {
+            meshes = new PoleMesh[32];
+            poles.put(banner, meshes);
+        }
+        int index = (yAxis ? 16 : 0) + (type & 15);
+        IIcon side = banner.getIcon(2, type), end = banner.getIcon(0, type);
+        PoleMesh mesh = meshes[index];
+        if (mesh == null || !mesh.matches(side, end, dims)) {
+            if (mesh != null) {
+                GL11.glDeleteLists(mesh.list, 1);
+            }
+            mesh = new PoleMesh(side, end, dims, GLAllocation.generateDisplayLists(1));
+            GL11.glNewList(mesh.list, GL11.GL_COMPILE);
+            if (yAxis) {
+                renderYFlagPole(banner, type, dims);
+            } else {
+                renderZFlagPole(banner, type, dims);
+            }
+            GL11.glEndList();
+            meshes[index] = mesh;
+        }
+        GL11.glCallList(mesh.list);
+    }
+
+    /**
+     * @return the display list to call for the given flag, or -1 if it is too far to be rendered
+     */
+    private int getFlagList(boolean yAxis, int flagIndex, double distance) {
+        if (distance > hiddenFlagDistanceSq) {
+            return -1;
+        }
+        if (builtSections != flag_sections) {
+            for (int[] lists : flagLists) {
+                for (int list : lists) {
+                    GL11.glDeleteLists(list, WAVE_FRAMES + 1);
+                }
+            }
+            flagLists[0] = flagLists[1] = new int[0];
+            builtSections = flag_sections;
+        }
+        int axis = yAxis ? 1 : 0;
+        int[] lists = flagLists[axis];
+        if (flagIndex >= lists.length) {
+            lists = Arrays.copyOf(lists, flagIndex + 1);
+            for (int i = flagLists[axis].length; i < lists.length; i++) {
+                lists[i] = compileFlag(yAxis, i);
+            }
+            flagLists[axis] = lists;
+        }
+        if (flag_sections == 0 || distance > flatFlagDistanceSq) {
+            return lists[flagIndex];
+        }
+        return lists[flagIndex] + 1 + (int) (System.currentTimeMillis() % period * WAVE_FRAMES / period);
+    }
+
+    private int compileFlag(boolean yAxis, int flagIndex) {
+        int base = GLAllocation.generateDisplayLists(WAVE_FRAMES + 1);
+        Tessellator tess = Tessellator.instance;
+        for (int frame = -1; frame < WAVE_FRAMES; frame++) {
+            GL11.glNewList(base + 1 + frame, GL11.GL_COMPILE);
+            tess.startDrawingQuads();
+            if (yAxis) {
+                addYFlag(tess, flagIndex, frame);
+            } else {
+                addZFlag(tess, flagIndex, frame);
+            }
+            tess.draw();
+            GL11.glEndList();
+        }
+        return base;
+    }
+
+    private void renderZFlag(IFlagHolder tileentity, double distance) {
 
         List<ItemStack> flags = tileentity.getFlags();
-        if (flags.size() > 0) {
-            Tessellator tess = Tessellator.instance;
+        if (flags.size() > 0 && distance <= hiddenFlagDistanceSq) {
             GL11.glEnable(GL11.GL_BLEND);
             GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
 
@@ -86,92 +196,8 @@ public class FlagPoleTileRenderer extends TileEntitySpecialRenderer {
             GL11.glPushMatrix();
             GL11.glRotatef(-90, 0, 0, 1);
             for (int flagIndex = 0; flagIndex < flags.size(); flagIndex++) {
-                ItemStack flag = flags.get(flagIndex);
-                ImageCache.setTexture(flag);
-
-                if (flag_sections == 0) {
-                    tess.startDrawingQuads();
-
-                    tess.addVertexWithUV(8F / 16F, -flagIndex + 1 - 2F / 16F, 0, 0, 0.001);
-                    tess.addVertexWithUV(8F / 16F, -flagIndex - 2F / 16F, 0, 1.00, 0.001);
-                    tess.addVertexWithUV(8F / 16F, -flagIndex - 2F / 16F, 1, 1.00, 0.999);
-                    tess.addVertexWithUV(8F / 16F, -flagIndex + 1 - 2F / 16F, 1, 0, 0.999);
-
-                    tess.addVertexWithUV(8F / 16F, -flagIndex + 1 - 2F / 16F, 1, 0, 0.999);
-                    tess.addVertexWithUV(8F / 16F, -flagIndex - 2F / 16F, 1, 1.00, 0.999);
-                    tess.addVertexWithUV(8F / 16F, -flagIndex - 2F / 16F, 0, 1.00, 0.001);
-                    tess.addVertexWithUV(8F / 16F, -flagIndex + 1 - 2F / 16F, 0, 0, 0.001);
-
-                    tess.draw();
-
-                } else {
-
-                    long time = System.currentTimeMillis();
-                    for (int i = 0; i < flag_sections; i++) {
-                        tess.startDrawingQuads();
-
-                        double z1 = getZLevel(
-                                (float) ((flag_sections - i)) / (float) flag_sections + flagIndex,
-                                5,
-                                time) / 5F;
-                        double z2 = getZLevel(
-                                (float) (flag_sections - i + 1) / (float) flag_sections + flagIndex,
-                                5,
-                                time) / 5F;
-
-                        tess.addVertexWithUV(
-                                8F / 16F + z1,
-                                -flagIndex + (float) (i + 1) / (float) flag_sections - 2F / 16F,
-                                0,
-                                (float) (i + 1) / (float) flag_sections,
-                                0.999);
-                        tess.addVertexWithUV(
-                                8F / 16F + z2,
-                                -flagIndex + (float) (i) / (float) flag_sections - 2F / 16F,
-                                0,
-                                (float) (i) / (float) flag_sections,
-                                0.999);
-                        tess.addVertexWithUV(
-                                8F / 16F + z2,
-                                -flagIndex + (float) (i) / (float) flag_sections - 2F / 16F,
-                                1,
-                                (float) (i) / (float) flag_sections,
-                                0.001);
-                        tess.addVertexWithUV(
-                                8F / 16F + z1,
-                                -flagIndex + (float) (i + 1) / (float) flag_sections - 2F / 16F,
-                                1,
-                                (float) (i + 1) / (float) flag_sections,
-                                0.001);
-
-                        tess.addVertexWithUV(
-                                8F / 16F + z1,
-                                -flagIndex + (float) (i + 1) / (float) flag_sections - 2F / 16F,
-                                1,
-                                (float) (i + 1) / (float) flag_sections,
-                                0.001);
-                        tess.addVertexWithUV(
-                                8F / 16F + z2,
-                                -flagIndex + (float) (i) / (float) flag_sections - 2F / 16F,
-                                1,
-                                (float) (i) / (float) flag_sections,
-                                0.001);
-                        tess.addVertexWithUV(
-                                8F / 16F + z2,
-                                -flagIndex + (float) (i) / (float) flag_sections - 2F / 16F,
-                                0,
-                                (float) (i) / (float) flag_sections,
-                                0.999);
-                        tess.addVertexWithUV(
-                                8F / 16F + z1,
-                                -flagIndex + (float) (i + 1) / (float) flag_sections - 2F / 16F,
-                                0,
-                                (float) (i + 1) / (float) flag_sections,
-                                0.999);
-
-                        tess.draw();
-                    }
-                }
+                ImageCache.setTexture(flags.get(flagIndex));
+                GL11.glCallList(getFlagList(false, flagIndex, distance));
             }
 
             GL11.glPopMatrix();
@@ -181,7 +207,81 @@ public class FlagPoleTileRenderer extends TileEntitySpecialRenderer {
         }
     }
 
-    private void renderZFlagPole(Block banner, float f, int type, float[] dims) {
+    /**
+     * @param frame the animation frame, or -1 for a flat flag
+     */
+    private void addZFlag(Tessellator tess, int flagIndex, int frame) {
+        if (frame < 0) {
+            tess.addVertexWithUV(8F / 16F, -flagIndex + 1 - 2F / 16F, 0, 0, 0.001);
+            tess.addVertexWithUV(8F / 16F, -flagIndex - 2F / 16F, 0, 1.00, 0.001);
+            tess.addVertexWithUV(8F / 16F, -flagIndex - 2F / 16F, 1, 1.00, 0.999);
+            tess.addVertexWithUV(8F / 16F, -flagIndex + 1 - 2F / 16F, 1, 0, 0.999);
+
+            tess.addVertexWithUV(8F / 16F, -flagIndex + 1 - 2F / 16F, 1, 0, 0.999);
+            tess.addVertexWithUV(8F / 16F, -flagIndex - 2F / 16F, 1, 1.00, 0.999);
+            tess.addVertexWithUV(8F / 16F, -flagIndex - 2F / 16F, 0, 1.00, 0.001);
+            tess.addVertexWithUV(8F / 16F, -flagIndex + 1 - 2F / 16F, 0, 0, 0.001);
+        } else {
+            for (int i = 0; i < flag_sections; i++) {
+                double z1 = getWaveOffset((float) ((flag_sections - i)) / (float) flag_sections + flagIndex, 5, frame)
+                        / 5F;
+                double z2 = getWaveOffset((float) (flag_sections - i + 1) / (float) flag_sections + flagIndex, 5, frame)
+                        / 5F;
+
+                tess.addVertexWithUV(
+                        8F / 16F + z1,
+                        -flagIndex + (float) (i + 1) / (float) flag_sections - 2F / 16F,
+                        0,
+                        (float) (i + 1) / (float) flag_sections,
+                        0.999);
+                tess.addVertexWithUV(
+                        8F / 16F + z2,
+                        -flagIndex + (float) (i) / (float) flag_sections - 2F / 16F,
+                        0,
+                        (float) (i) / (float) flag_sections,
+                        0.999);
+                tess.addVertexWithUV(
+                        8F / 16F + z2,
+                        -flagIndex + (float) (i) / (float) flag_sections - 2F / 16F,
+                        1,
+                        (float) (i) / (float) flag_sections,
+                        0.001);
+                tess.addVertexWithUV(
+                        8F / 16F + z1,
+                        -flagIndex + (float) (i + 1) / (float) flag_sections - 2F / 16F,
+                        1,
+                        (float) (i + 1) / (float) flag_sections,
+                        0.001);
+
+                tess.addVertexWithUV(
+                        8F / 16F + z1,
+                        -flagIndex + (float) (i + 1) / (float) flag_sections - 2F / 16F,
+                        1,
+                        (float) (i + 1) / (float) flag_sections,
+                        0.001);
+                tess.addVertexWithUV(
+                        8F / 16F + z2,
+                        -flagIndex + (float) (i) / (float) flag_sections - 2F / 16F,
+                        1,
+                        (float) (i) / (float) flag_sections,
+                        0.001);
+                tess.addVertexWithUV(
+                        8F / 16F + z2,
+                        -flagIndex + (float) (i) / (float) flag_sections - 2F / 16F,
+                        0,
+                        (float) (i) / (float) flag_sections,
+                        0.999);
+                tess.addVertexWithUV(
+                        8F / 16F + z1,
+                        -flagIndex + (float) (i + 1) / (float) flag_sections - 2F / 16F,
+                        0,
+                        (float) (i + 1) / (float) flag_sections,
+                        0.999);
+            }
+        }
+    }
+
+    private void renderZFlagPole(Block banner, int type, float[] dims) {
         IIcon icon = banner.getIcon(2, type);
         Tessellator tess = Tessellator.instance;
         tess.startDrawingQuads();
@@ -309,101 +409,96 @@ public class FlagPoleTileRenderer extends TileEntitySpecialRenderer {
         tess.draw();
     }
 
-    private void renderYFlag(IFlagHolder tileentity, double d0, double d1, double d2, float f, int type) {
+    private void renderYFlag(IFlagHolder tileentity, double distance) {
 
         List<ItemStack> flags = tileentity.getFlags();
-        if (flags.size() > 0) {
-            Tessellator tess = Tessellator.instance;
+        if (flags.size() > 0 && distance <= hiddenFlagDistanceSq) {
             GL11.glEnable(GL11.GL_BLEND);
             GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
 
             GL11.glDisable(GL11.GL_LIGHTING);
             for (int flagIndex = 0; flagIndex < flags.size(); flagIndex++) {
-                ItemStack flag = flags.get(flagIndex);
-                ImageCache.setTexture(flag);
-
-                if (flag_sections == 0) {
-                    tess.startDrawingQuads();
-                    tess.addVertexWithUV(7F / 16F - flagIndex, 0, 8F / 16F, 0, 0.999);
-                    tess.addVertexWithUV(7F / 16F - flagIndex - 1, 0, 8F / 16F, 1.0025, 0.999);
-                    tess.addVertexWithUV(7F / 16F - flagIndex - 1, 1, 8F / 16F, 1.0025, 0.001);
-                    tess.addVertexWithUV(7F / 16F - flagIndex, 1, 8F / 16F, 0, 0.001);
-
-                    tess.addVertexWithUV(7F / 16F - flagIndex, 1, 8F / 16F, 0, 0.001);
-                    tess.addVertexWithUV(7F / 16F - flagIndex - 1, 1, 8F / 16F, 1.0025, 0.001);
-                    tess.addVertexWithUV(7F / 16F - flagIndex - 1, 0, 8F / 16F, 1.0025, 0.999);
-                    tess.addVertexWithUV(7F / 16F - flagIndex, 0, 8F / 16F, 0, 0.999);
-
-                    tess.draw();
-
-                } else {
-                    long time = System.currentTimeMillis();
-                    for (int i = 0; i < flag_sections; i++) {
-                        tess.startDrawingQuads();
-
-                        double z1 = getZLevel((float) (i) / (float) flag_sections + flagIndex, 3, time);
-                        double z2 = getZLevel((float) (i + 1) / (float) flag_sections + flagIndex, 3, time);
-
-                        tess.addVertexWithUV(
-                                7F / 16F - (float) (i) / (float) flag_sections - flagIndex,
-                                0,
-                                8F / 16F + z1,
-                                (float) (i) / (float) flag_sections,
-                                0.999);
-                        tess.addVertexWithUV(
-                                7F / 16F - (float) (i + 1) / (float) flag_sections - flagIndex,
-                                0,
-                                8F / 16F + z2,
-                                (float) (i + 1) / (float) flag_sections,
-                                0.999);
-                        tess.addVertexWithUV(
-                                7F / 16F - (float) (i + 1) / (float) flag_sections - flagIndex,
-                                1.0025,
-                                8F / 16F + z2,
-                                (float) (i + 1) / (float) flag_sections,
-                                0.001);
-                        tess.addVertexWithUV(
-                                7F / 16F - (float) (i) / (float) flag_sections - flagIndex,
-                                1.0025,
-                                8F / 16F + z1,
-                                (float) (i) / (float) flag_sections,
-                                0.001);
-
-                        tess.addVertexWithUV(
-                                7F / 16F - (float) (i) / (float) flag_sections - flagIndex,
-                                1.0025,
-                                8F / 16F + z1,
-                                (float) (i) / (float) flag_sections,
-                                0.001);
-                        tess.addVertexWithUV(
-                                7F / 16F - (float) (i + 1) / (float) flag_sections - flagIndex,
-                                1.0025,
-                                8F / 16F + z2,
-                                (float) (i + 1) / (float) flag_sections,
-                                0.001);
-                        tess.addVertexWithUV(
-                                7F / 16F - (float) (i + 1) / (float) flag_sections - flagIndex,
-                                0,
-                                8F / 16F + z2,
-                                (float) (i + 1) / (float) flag_sections,
-                                0.999);
-                        tess.addVertexWithUV(
-                                7F / 16F - (float) (i) / (float) flag_sections - flagIndex,
-                                0,
-                                8F / 16F + z1,
-                                (float) (i) / (float) flag_sections,
-                                0.999);
-
-                        tess.draw();
-                    }
-                }
+                ImageCache.setTexture(flags.get(flagIndex));
+                GL11.glCallList(getFlagList(true, flagIndex, distance));
             }
             GL11.glEnable(GL11.GL_LIGHTING);
             GL11.glDisable(GL11.GL_BLEND);
         }
     }
 
-    private void renderYFlagPole(Block banner, float f, int type, float[] dims) {
+    /**
+     * @param frame the animation frame, or -1 for a flat flag
+     */
+    private void addYFlag(Tessellator tess, int flagIndex, int frame) {
+        if (frame < 0) {
+            tess.addVertexWithUV(7F / 16F - flagIndex, 0, 8F / 16F, 0, 0.999);
+            tess.addVertexWithUV(7F / 16F - flagIndex - 1, 0, 8F / 16F, 1.0025, 0.999);
+            tess.addVertexWithUV(7F / 16F - flagIndex - 1, 1, 8F / 16F, 1.0025, 0.001);
+            tess.addVertexWithUV(7F / 16F - flagIndex, 1, 8F / 16F, 0, 0.001);
+
+            tess.addVertexWithUV(7F / 16F - flagIndex, 1, 8F / 16F, 0, 0.001);
+            tess.addVertexWithUV(7F / 16F - flagIndex - 1, 1, 8F / 16F, 1.0025, 0.001);
+            tess.addVertexWithUV(7F / 16F - flagIndex - 1, 0, 8F / 16F, 1.0025, 0.999);
+            tess.addVertexWithUV(7F / 16F - flagIndex, 0, 8F / 16F, 0, 0.999);
+        } else {
+            for (int i = 0; i < flag_sections; i++) {
+                double z1 = getWaveOffset((float) (i) / (float) flag_sections + flagIndex, 3, frame);
+                double z2 = getWaveOffset((float) (i + 1) / (float) flag_sections + flagIndex, 3, frame);
+
+                tess.addVertexWithUV(
+                        7F / 16F - (float) (i) / (float) flag_sections - flagIndex,
+                        0,
+                        8F / 16F + z1,
+                        (float) (i) / (float) flag_sections,
+                        0.999);
+                tess.addVertexWithUV(
+                        7F / 16F - (float) (i + 1) / (float) flag_sections - flagIndex,
+                        0,
+                        8F / 16F + z2,
+                        (float) (i + 1) / (float) flag_sections,
+                        0.999);
+                tess.addVertexWithUV(
+                        7F / 16F - (float) (i + 1) / (float) flag_sections - flagIndex,
+                        1.0025,
+                        8F / 16F + z2,
+                        (float) (i + 1) / (float) flag_sections,
+                        0.001);
+                tess.addVertexWithUV(
+                        7F / 16F - (float) (i) / (float) flag_sections - flagIndex,
+                        1.0025,
+                        8F / 16F + z1,
+                        (float) (i) / (float) flag_sections,
+                        0.001);
+
+                tess.addVertexWithUV(
+                        7F / 16F - (float) (i) / (float) flag_sections - flagIndex,
+                        1.0025,
+                        8F / 16F + z1,
+                        (float) (i) / (float) flag_sections,
+                        0.001);
+                tess.addVertexWithUV(
+                        7F / 16F - (float) (i + 1) / (float) flag_sections - flagIndex,
+                        1.0025,
+                        8F / 16F + z2,
+                        (float) (i + 1) / (float) flag_sections,
+                        0.001);
+                tess.addVertexWithUV(
+                        7F / 16F - (float) (i + 1) / (float) flag_sections - flagIndex,
+                        0,
+                        8F / 16F + z2,
+                        (float) (i + 1) / (float) flag_sections,
+                        0.999);
+                tess.addVertexWithUV(
+                        7F / 16F - (float) (i) / (float) flag_sections - flagIndex,
+                        0,
+                        8F / 16F + z1,
+                        (float) (i) / (float) flag_sections,
+                        0.999);
+            }
+        }
+    }
+
+    private void renderYFlagPole(Block banner, int type, float[] dims) {
 
         IIcon icon = banner.getIcon(2, type);
         Tessellator tess = Tessellator.instance;
@@ -452,4 +547,31 @@ public class FlagPoleTileRenderer extends TileEntitySpecialRenderer {
         tess.addVertexWithUV(9F / 16F, 1, 9F / 16F, icon.getInterpolatedU(6), icon.getInterpolatedV(10));
         tess.draw();
     }
+
+    /**
+     * A compiled pole, valid as long as its icons and dimensions don't change
+     */
+    private static final class PoleMesh {
+
+        private final IIcon side, end;
+        private final float sideU, endU;
+        private final float[] dims;
+        private final int list;
+
+        private PoleMesh(IIcon side, IIcon end, float[] dims, int list) {
+            this.side = side;
+            this.end = end;
+            this.sideU = side.getMinU();
+            this.endU = end.getMinU();
+            this.dims = dims;
+            this.list = list;
+        }
+
+        private boolean matches(IIcon side, IIcon end, float[] dims) {
+            return this.side == side && this.end == end
+                    && sideU == side.getMinU()
+                    && endU == end.getMinU()
+                    && Arrays.equals(this.dims, dims);
+        }
+    }
 }
@@ -6,16 +6,13 @@ import static org.lwjgl.opengl.GL11.glPushMatrix;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.client.renderer.entity.RenderItem;
-import net.minecraft.client.renderer.texture.ITextureObject;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.client.IItemRenderer;
 
-import mods.battlegear2.api.heraldry.HeraldryData;
-import mods.battlegear2.api.heraldry.HeraldryTextureSmall;
 import mods.battlegear2.api.heraldry.IHeraldryItem;
-import mods.battlegear2.api.heraldry.RefreshableTexture;
 import mods.battlegear2.client.utils.BattlegearRenderHelper;
+import mods.battlegear2.client.utils.ImageCache;
 
 public class HeraldryCrestItemRenderer implements IItemRenderer {
 
@@ -46,16 +43,16 @@ public class HeraldryCrestItemRenderer implements IItemRenderer {
 
         switch (type) {
             case INVENTORY:
-                doInventoryRendering(item, new HeraldryData(heraldryData), ((IHeraldryItem) item.getItem()));
+                doInventoryRendering(item, heraldryData, ((IHeraldryItem) item.getItem()));
                 break;
             case FIRST_PERSON_MAP:
-                doMapRendering(item, new HeraldryData(heraldryData), ((IHeraldryItem) item.getItem()));
+                doMapRendering(item, heraldryData, ((IHeraldryItem) item.getItem()));
             default:
                 break;
         }
     }
 
-    private void doMapRendering(ItemStack item, HeraldryData heraldryData, IHeraldryItem item1) {
+    private void doMapRendering(ItemStack item, byte[] heraldryData, IHeraldryItem item1) {
         glPushMatrix();
 
         // glDepthFunc(GL11.GL_EQUAL);
@@ -74,46 +71,28 @@ public class HeraldryCrestItemRenderer implements IItemRenderer {
 
         // glDisable(GL_BLEND);
         // glDepthFunc(GL11.GL_LEQUAL);
-        RefreshableTexture currentCrest = new RefreshableTexture(32, 32);
-        currentCrest.refreshWith(heraldryData, false);
-        ResourceLocation crestLocation = Minecraft.getMinecraft().getTextureManager()
-                .getDynamicTextureLocation("gui_crest", currentCrest);
-        ITextureObject texture = Minecraft.getMinecraft().getTextureManager().getTexture(crestLocation);
-        if (texture == null) {
-            texture = new HeraldryTextureSmall(heraldryData);
-            Minecraft.getMinecraft().getTextureManager().loadTexture(crestLocation, texture);
+        if (ImageCache.bindCrest(heraldryData)) {
+            tess.startDrawingQuads();
+            tess.addVertexWithUV(8, 120, -0.015, 0, 1);
+            tess.addVertexWithUV(120, 120, -0.015, 1, 1);
+            tess.addVertexWithUV(120, 8, -0.015, 1, 0);
+            tess.addVertexWithUV(8, 8, -0.015, 0, 0);
+            tess.draw();
         }
-        Minecraft.getMinecraft().getTextureManager().bindTexture(crestLocation);
-
-        tess.startDrawingQuads();
-        tess.addVertexWithUV(8, 120, -0.015, 0, 1);
-        tess.addVertexWithUV(120, 120, -0.015, 1, 1);
-        tess.addVertexWithUV(120, 8, -0.015, 1, 0);
-        tess.addVertexWithUV(8, 8, -0.015, 0, 0);
-        tess.draw();
 
         glPopMatrix();
     }
 
-    private void doInventoryRendering(ItemStack item, HeraldryData heraldryData, IHeraldryItem heraldryItem) {
+    private void doInventoryRendering(ItemStack item, byte[] heraldryData, IHeraldryItem heraldryItem) {
 
         Minecraft.getMinecraft().getTextureManager().bindTexture(map_overlay);
         BattlegearRenderHelper.renderTexturedQuad(0, 0, itemRenderer.zLevel, 16, 16);
 
         itemRenderer.zLevel += 100;
         glPushMatrix();
-        RefreshableTexture currentCrest = new RefreshableTexture(32, 32);
-        currentCrest.refreshWith(heraldryData, false);
-        ResourceLocation crestLocation = Minecraft.getMinecraft().getTextureManager()
-                .getDynamicTextureLocation("gui_crest", currentCrest);
-        ITextureObject texture = Minecraft.getMinecraft().getTextureManager().getTexture(crestLocation);
-        if (texture == null) {
-            texture = new HeraldryTextureSmall(heraldryData);
-            Minecraft.getMinecraft().getTextureManager().loadTexture(crestLocation, texture);
+        if (ImageCache.bindCrest(heraldryData)) {
+            BattlegearRenderHelper.renderTexturedQuad(2, 2, itemRenderer.zLevel, 12, 12);
         }
-        Minecraft.getMinecraft().getTextureManager().bindTexture(crestLocation);
-
-        BattlegearRenderHelper.renderTexturedQuad(2, 2, itemRenderer.zLevel, 12, 12);
 
         glPopMatrix();
 
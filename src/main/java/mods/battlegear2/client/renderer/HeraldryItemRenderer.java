@@ -2,21 +2,16 @@ package mods.battlegear2.client.renderer;
 
 import static org.lwjgl.opengl.GL11.*;
 
-import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.entity.RenderItem;
-import net.minecraft.client.renderer.texture.ITextureObject;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.IIcon;
-import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.client.IItemRenderer;
 
 import org.lwjgl.opengl.GL11;
 
-import mods.battlegear2.api.heraldry.HeraldryData;
-import mods.battlegear2.api.heraldry.HeraldryTextureSmall;
 import mods.battlegear2.api.heraldry.IHeraldryItem;
-import mods.battlegear2.api.heraldry.RefreshableTexture;
 import mods.battlegear2.client.utils.BattlegearRenderHelper;
+import mods.battlegear2.client.utils.ImageCache;
 
 public class HeraldryItemRenderer implements IItemRenderer {
 
@@ -42,11 +37,11 @@ public class HeraldryItemRenderer implements IItemRenderer {
         byte[] heraldryData = ((IHeraldryItem) item.getItem()).getHeraldry(item);
 
         if (type == ItemRenderType.INVENTORY) {
-            doInventoryRendering(item, new HeraldryData(heraldryData), ((IHeraldryItem) item.getItem()));
+            doInventoryRendering(item, heraldryData, ((IHeraldryItem) item.getItem()));
         }
     }
 
-    private void doInventoryRendering(ItemStack item, HeraldryData heraldryData, IHeraldryItem heraldryItem) {
+    private void doInventoryRendering(ItemStack item, byte[] heraldryData, IHeraldryItem heraldryItem) {
 
         IIcon icon = heraldryItem.getBaseIcon(item);
 
@@ -56,24 +51,15 @@ public class HeraldryItemRenderer implements IItemRenderer {
 
             glColor3f(1, 1, 1);
             itemRenderer.renderIcon(0, 0, icon, 16, 16);
-            RefreshableTexture currentCrest = new RefreshableTexture(32, 32);
-            currentCrest.refreshWith(heraldryData, false);
-            ResourceLocation crestLocation = Minecraft.getMinecraft().getTextureManager()
-                    .getDynamicTextureLocation("gui_crest", currentCrest);
-            ITextureObject texture = Minecraft.getMinecraft().renderEngine.getTexture(crestLocation);
-            if (texture == null) {
-                texture = new HeraldryTextureSmall(heraldryData);
-                Minecraft.getMinecraft().renderEngine.loadTexture(crestLocation, texture);
+            if (ImageCache.bindCrest(heraldryData)) {
+                glDepthFunc(GL11.GL_EQUAL);
+                glEnable(GL_BLEND);
+                glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+                BattlegearRenderHelper.renderTexturedQuad(0, 0, itemRenderer.zLevel, 16, 16);
+
+                glDisable(GL_BLEND);
+                GL11.glDepthFunc(GL11.GL_LEQUAL);
             }
-            Minecraft.getMinecraft().renderEngine.bindTexture(crestLocation);
-
-            glDepthFunc(GL11.GL_EQUAL);
-            glEnable(GL_BLEND);
-            glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-            BattlegearRenderHelper.renderTexturedQuad(0, 0, itemRenderer.zLevel, 16, 16);
-
-            glDisable(GL_BLEND);
-            GL11.glDepthFunc(GL11.GL_LEQUAL);
 
             glPopMatrix();
         }
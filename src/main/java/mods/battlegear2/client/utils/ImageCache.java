@@ -1,66 +1,148 @@
 package mods.battlegear2.client.utils;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import net.minecraft.client.renderer.texture.DynamicTexture;
 import net.minecraft.item.ItemStack;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import org.lwjgl.opengl.GL11;
 
+import mods.battlegear2.api.heraldry.HeraldryData;
 import mods.battlegear2.api.heraldry.IHeraldryItem;
+import mods.battlegear2.api.heraldry.RefreshableTexture;
+import mods.battlegear2.utils.BattlegearConfig;
 
 /**
- * User: nerd-boy Date: 2/08/13 Time: 3:02 PM TODO: Add discription
+ * Shared texture memory for heraldry rendering. Textures are identified by the content of the bytes they are built
+ * from, so identical flags or crests share a single GL texture. The least recently used textures are deleted once
+ * {@link BattlegearConfig#heraldryTextureCacheSize} is reached, and at most
+ * {@link BattlegearConfig#heraldryUploadsPerFrame} new textures are uploaded each frame.
  */
 public class ImageCache {
 
-    public static int CACHE_SIZE = 25;
-    private static ItemStack temp;
-
-    private static final DynamicTexture defaultTexture;
-
-    private static final DynamicTexture test1;
-
-    static {
-        defaultTexture = new DynamicTexture(ImageData.IMAGE_RES, ImageData.IMAGE_RES);
+    private static final byte IMAGE = 0, CREST = 1;
+    private static final Map<Key, DynamicTexture> textures = new LinkedHashMap<Key, DynamicTexture>(64, 0.75F, true);
+    private static DynamicTexture defaultTexture;
+    private static int uploads;
 
-        test1 = new DynamicTexture(ImageData.IMAGE_RES, ImageData.IMAGE_RES);
-
-        ImageData.defaultImage.setTexture(defaultTexture.getTextureData());
+    /**
+     * Bind the flag image held by the given stack, or the default image if it has none or can't be uploaded this
+     * frame
+     */
+    public static void setTexture(ItemStack stack) {
+        if (stack != null && stack.getItem() instanceof IHeraldryItem
+                && ((IHeraldryItem) stack.getItem()).hasHeraldry(stack)) {
+            DynamicTexture texture = get(IMAGE, ((IHeraldryItem) stack.getItem()).getHeraldry(stack));
+            if (texture != null) {
+                GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture.getGlTextureId());
+                return;
+            }
+        }
+        if (defaultTexture == null) {
+            defaultTexture = new DynamicTexture(ImageData.IMAGE_RES, ImageData.IMAGE_RES);
+            ImageData.defaultImage.setTexture(defaultTexture.getTextureData());
+            defaultTexture.updateDynamicTexture();
+        }
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, defaultTexture.getGlTextureId());
     }
 
-    private static final LoadingCache<String, DynamicTexture> imageCache = CacheBuilder.newBuilder()
-            .maximumSize(CACHE_SIZE).build(new CacheLoader<String, DynamicTexture>() {
-
-                @Override
-                public DynamicTexture load(String key) throws Exception {
-                    DynamicTexture texture = new DynamicTexture(ImageData.IMAGE_RES, ImageData.IMAGE_RES);
+    /**
+     * Bind the pattern texture described by the given heraldry code
+     *
+     * @return false if nothing was bound, because the upload budget for this frame is spent
+     */
+    public static boolean bindCrest(byte[] heraldry) {
+        DynamicTexture texture = get(CREST, heraldry);
+        if (texture != null) {
+            GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture.getGlTextureId());
+            return true;
+        }
+        return false;
+    }
 
-                    if (temp != null && temp.getItem() instanceof IHeraldryItem
-                            && ((IHeraldryItem) temp.getItem()).hasHeraldry(temp)) {
+    /**
+     * Reset the upload budget, called at the start of each rendered frame
+     */
+    public static void onFrameStart() {
+        uploads = 0;
+        trim();
+    }
 
-                        new ImageData(((IHeraldryItem) temp.getItem()).getHeraldry(temp))
-                                .setTexture(texture.getTextureData());
-                    }
+    public static int size() {
+        return textures.size();
+    }
 
-                    return texture;
-                }
-            });
+    private static DynamicTexture get(byte type, byte[] data) {
+        Key key = new Key(type, data, false);
+        DynamicTexture texture = textures.get(key);
+        if (texture == null) {
+            if (uploads >= BattlegearConfig.heraldryUploadsPerFrame) {
+                return null;
+            }
+            uploads++;
+            if (type == CREST) {
+                RefreshableTexture crest = new RefreshableTexture(ImageData.IMAGE_RES, ImageData.IMAGE_RES);
+                crest.refreshWith(new HeraldryData(data), false);
+                texture = crest;
+            } else {
+                texture = new DynamicTexture(ImageData.IMAGE_RES, ImageData.IMAGE_RES);
+                new ImageData(data).setTexture(texture.getTextureData());
+            }
+            texture.updateDynamicTexture();
+            textures.put(new Key(type, data, true), texture);
+            trim();
+        }
+        return texture;
+    }
 
-    static {
-        CacheBuilder.newBuilder().build();
+    private static void trim() {
+        Iterator<DynamicTexture> iterator = textures.values().iterator();
+        for (int excess = textures.size() - BattlegearConfig.heraldryTextureCacheSize; excess > 0
+                && iterator.hasNext(); excess--) {
+            iterator.next().deleteGlTexture();
+            iterator.remove();
+        }
     }
 
-    public static void setTexture(ItemStack stack) {
+    /**
+     * Identifies texture content by a 64 bits hash of its source bytes, the bytes being only compared when hashes are
+     * equal
+     */
+    private static final class Key {
+
+        private final byte type;
+        private final byte[] data;
+        private final long hash;
+
+        private Key(byte type, byte[] data, boolean stored) {
+            this.type = type;
+            this.data = stored ? data.clone() : data;
+            long h = 0xcbf29ce484222325L ^ type;
+            for (byte b : data) {
+                h ^= b & 0xFF;
+                h *= 0x100000001b3L;
+            }
+            this.hash = h;
+        }
 
-        if (stack != null && stack.getItem() instanceof IHeraldryItem
-                && ((IHeraldryItem) stack.getItem()).hasHeraldry(stack)) {
-            ImageData id = new ImageData(((IHeraldryItem) stack.getItem()).getHeraldry(stack));
-            id.setTexture(test1.getTextureData());
-            test1.updateDynamicTexture();
-        } else {
-            ImageData.defaultImage.setTexture(defaultTexture.getTextureData());
-            defaultTexture.updateDynamicTexture();
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && type == other.type && Arrays.equals(data, other.data);
         }
     }
 }
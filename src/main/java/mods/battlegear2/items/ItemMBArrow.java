@@ -1,5 +1,7 @@
 package mods.battlegear2.items;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 import java.util.List;
 
 import net.minecraft.client.renderer.texture.IIconRegister;
@@ -13,9 +15,12 @@ import net.minecraft.util.IIcon;
 import net.minecraft.util.StatCollector;
 import net.minecraft.world.World;
 
+import com.google.common.base.Throwables;
+
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 import mods.battlegear2.api.quiver.DispenseArrow;
+import mods.battlegear2.api.quiver.QuiverArrowRegistry;
 import mods.battlegear2.items.arrows.AbstractMBArrow;
 import mods.battlegear2.items.arrows.EntityEnderArrow;
 import mods.battlegear2.items.arrows.EntityExplossiveArrow;
@@ -34,6 +39,15 @@ public class ItemMBArrow extends Item {
     public static final Class<? extends AbstractMBArrow>[] arrows = new Class[] { EntityHolyArrow.class,
             EntityIceArrow.class, EntityExplossiveArrow.class, EntityEnderArrow.class, EntityFlameArrow.class,
             EntityPiercingArrow.class, EntityPoisonArrow.class, EntityLoveArrow.class, EntityLeechArrow.class };
+    private static final MethodHandle[] dispensed = new MethodHandle[arrows.length];
+
+    static {
+        MethodType type = MethodType.methodType(EntityArrow.class, World.class);
+        for (int i = 0; i < arrows.length; i++) {
+            dispensed[i] = QuiverArrowRegistry.getArrowConstructor(arrows[i], type);
+        }
+    }
+
     public static final Item[] component = { Items.golden_apple, Items.snowball, Items.gunpowder, Items.ender_pearl,
             Items.flint, Items.diamond, Items.nether_star, Items.cookie, Items.ghast_tear };
     public static final DispenseArrow dispensable = new DispenseArrow() {
@@ -42,9 +56,10 @@ public class ItemMBArrow extends Item {
         protected EntityArrow getArrowEntity(World world, ItemStack itemStack) {
             if (itemStack.getItemDamage() < arrows.length) {
                 try {
-                    return arrows[itemStack.getItemDamage()].getConstructor(World.class).newInstance(world);
-                } catch (Exception e) {
-                    e.printStackTrace();
+                    return (EntityArrow) dispensed[itemStack.getItemDamage()].invokeExact(world);
+                } catch (Throwable thrown) {
+                    Throwables.propagateIfInstanceOf(thrown, Error.class);
+                    thrown.printStackTrace();
                 }
             }
             return null;
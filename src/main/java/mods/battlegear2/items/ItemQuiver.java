@@ -10,6 +10,7 @@ import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.projectile.EntityArrow;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumChatFormatting;
 import net.minecraft.util.IIcon;
@@ -18,6 +19,9 @@ import net.minecraft.world.World;
 import net.minecraftforge.common.ForgeHooks;
 import net.minecraftforge.event.ForgeEventFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 import mods.battlegear2.api.IDyable;
@@ -28,6 +32,19 @@ import mods.battlegear2.api.quiver.QuiverArrowRegistry;
 
 public class ItemQuiver extends Item implements IArrowContainer2, IDyable {
 
+    private static final String[] SLOT_KEYS = new String[16];
+
+    static {
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            SLOT_KEYS[i] = "Slot" + i;
+        }
+    }
+
+    /**
+     * Decoded contents, weakly keyed by the identity of the quiver compound
+     */
+    private static final Cache<NBTTagCompound, Contents> contentsCache = CacheBuilder.newBuilder().weakKeys()
+            .maximumSize(1024).build();
     public IIcon quiverDetails;
     public IIcon quiverArrows;
 
@@ -89,9 +106,14 @@ public class ItemQuiver extends Item implements IArrowContainer2, IDyable {
 
     @Override
     public ItemStack getStackInSlot(ItemStack container, int slot) {
+        Contents contents = getContents(container);
+        if (slot >= 0 && slot < contents.stacks.length) {
+            ItemStack stack = contents.stacks[slot];
+            return stack != null ? stack.copy() : null;
+        }
         NBTTagCompound compound = getNBTTagComound(container);
-        if (compound.hasKey("Slot" + slot)) {
-            return ItemStack.loadItemStackFromNBT(compound.getCompoundTag("Slot" + slot));
+        if (compound.hasKey(slotKey(slot))) {
+            return ItemStack.loadItemStackFromNBT(compound.getCompoundTag(slotKey(slot)));
         } else {
             return null;
         }
@@ -99,17 +121,40 @@ public class ItemQuiver extends Item implements IArrowContainer2, IDyable {
 
     @Override
     public void setStackInSlot(ItemStack container, int slot, ItemStack stack) {
+        Contents contents = getContents(container);
+        if (slot >= 0 && slot < contents.stacks.length) {
+            contents.write(getNBTTagComound(container), slot, stack);
+            return;
+        }
         NBTTagCompound compound = getNBTTagComound(container);
         if (stack == null) {
-            compound.removeTag("Slot" + slot);
+            compound.removeTag(slotKey(slot));
         } else {
             NBTTagCompound newSlotCompound = new NBTTagCompound();
 
             stack.writeToNBT(newSlotCompound);
-            compound.setTag("Slot" + slot, newSlotCompound);
+            compound.setTag(slotKey(slot), newSlotCompound);
         }
     }
 
+    /**
+     * @return the decoded slots of the container, reusing the previous decoding if the slot tags are still the same
+     */
+    private Contents getContents(ItemStack container) {
+        NBTTagCompound compound = getNBTTagComound(container);
+        int slotCount = getSlotCount(container);
+        Contents contents = contentsCache.getIfPresent(compound);
+        if (contents == null || !contents.isValid(compound, slotCount)) {
+            contents = new Contents(compound, slotCount);
+            contentsCache.put(compound, contents);
+        }
+        return contents;
+    }
+
+    private static String slotKey(int slot) {
+        return slot >= 0 && slot < SLOT_KEYS.length ? SLOT_KEYS[slot] : "Slot" + slot;
+    }
+
     @Override
     public boolean hasArrowFor(ItemStack stack, ItemStack bow, EntityPlayer player, int slot) {
         return bow != null && BattlegearUtils.isBow(bow.getItem())
@@ -171,12 +216,13 @@ public class ItemQuiver extends Item implements IArrowContainer2, IDyable {
     public ItemStack addArrows(ItemStack container, ItemStack newStack) {
         if (newStack != null) {
             int left_over = newStack.stackSize;
-            int slotCount = getSlotCount(container);
-            for (int i = 0; i < slotCount && left_over > 0; i++) {
-                ItemStack slotStack = getStackInSlot(container, i);
+            Contents contents = getContents(container);
+            ItemStack[] slots = contents.copyStacks();
+            for (int i = 0; i < slots.length && left_over > 0; i++) {
+                ItemStack slotStack = slots[i];
                 if (slotStack == null) {
                     newStack.stackSize = left_over;
-                    setStackInSlot(container, i, newStack);
+                    slots[i] = newStack;
                     left_over = 0;
                 } else {
                     if (newStack.getItem() == slotStack.getItem()
@@ -184,10 +230,10 @@ public class ItemQuiver extends Item implements IArrowContainer2, IDyable {
                         int newSize = Math.min(64, slotStack.stackSize + left_over);
                         left_over = left_over - (newSize - slotStack.stackSize);
                         slotStack.stackSize = newSize;
-                        setStackInSlot(container, i, slotStack);
                     }
                 }
             }
+            contents.writeAll(getNBTTagComound(container), slots);
             if (left_over > 0) {
                 newStack.stackSize = left_over;
                 return newStack;
@@ -284,4 +330,78 @@ public class ItemQuiver extends Item implements IArrowContainer2, IDyable {
         }
         nbttagcompound1.setInteger("color", par2);
     }
+
+    /**
+     * Decoded slots of a quiver compound, along with the slot tags they were decoded from
+     */
+    private static final class Contents {
+
+        private final NBTBase[] tags;
+        private final ItemStack[] stacks;
+
+        private Contents(NBTTagCompound compound, int slotCount) {
+            tags = new NBTBase[slotCount];
+            stacks = new ItemStack[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                tags[i] = compound.getTag(slotKey(i));
+                if (tags[i] instanceof NBTTagCompound) {
+                    stacks[i] = ItemStack.loadItemStackFromNBT((NBTTagCompound) tags[i]);
+                }
+            }
+        }
+
+        private boolean isValid(NBTTagCompound compound, int slotCount) {
+            if (slotCount != tags.length) {
+                return false;
+            }
+            for (int i = 0; i < slotCount; i++) {
+                if (compound.getTag(slotKey(i)) != tags[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private ItemStack[] copyStacks() {
+            ItemStack[] copy = new ItemStack[stacks.length];
+            for (int i = 0; i < stacks.length; i++) {
+                copy[i] = stacks[i] != null ? stacks[i].copy() : null;
+            }
+            return copy;
+        }
+
+        /**
+         * Write every changed slot in a single pass
+         */
+        private void writeAll(NBTTagCompound compound, ItemStack[] slots) {
+            for (int i = 0; i < slots.length; i++) {
+                write(compound, i, slots[i]);
+            }
+        }
+
+        /**
+         * Write the slot into the compound if it changed, updating only the stack size when possible
+         */
+        private void write(NBTTagCompound compound, int slot, ItemStack stack) {
+            ItemStack old = stacks[slot];
+            if (ItemStack.areItemStacksEqual(old, stack)) {
+                return;
+            }
+            if (stack == null) {
+                compound.removeTag(slotKey(slot));
+                tags[slot] = null;
+                stacks[slot] = null;
+            } else {
+                if (old != null && tags[slot] instanceof NBTTagCompound && old.isItemEqual(stack)
+                        && ItemStack.areItemStackTagsEqual(old, stack)) {
+                    ((NBTTagCompound) tags[slot]).setByte("Count", (byte) stack.stackSize);
+                } else {
+                    NBTTagCompound slotCompound = stack.writeToNBT(new NBTTagCompound());
+                    compound.setTag(slotKey(slot), slotCompound);
+                    tags[slot] = slotCompound;
+                }
+                stacks[slot] = stack.copy();
+            }
+        }
+    }
 }
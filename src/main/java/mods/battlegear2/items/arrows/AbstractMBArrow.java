@@ -1,5 +1,8 @@
 package mods.battlegear2.items.arrows;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.item.EntityItem;
@@ -11,6 +14,8 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.util.DamageSource;
 import net.minecraft.world.World;
 
+import com.google.common.base.Throwables;
+
 import mods.battlegear2.api.core.IInventoryPlayerBattle;
 import mods.battlegear2.api.quiver.IArrowContainer2;
 import mods.battlegear2.api.quiver.QuiverArrowRegistry;
@@ -18,6 +23,24 @@ import mods.battlegear2.items.ItemMBArrow;
 
 public abstract class AbstractMBArrow extends EntityArrow {
 
+    /**
+     * Constructors used by {@link #generate(int, EntityArrow, EntitySkeleton)}, indexed like {@link ItemMBArrow#arrows}
+     */
+    private static final MethodHandle[] skeletonFired = new MethodHandle[ItemMBArrow.arrows.length];
+
+    static {
+        MethodType type = MethodType.methodType(
+                AbstractMBArrow.class,
+                World.class,
+                EntityLivingBase.class,
+                EntityLivingBase.class,
+                float.class,
+                float.class);
+        for (int i = 0; i < skeletonFired.length; i++) {
+            skeletonFired[i] = QuiverArrowRegistry.getArrowConstructor(ItemMBArrow.arrows[i], type);
+        }
+    }
+
     public AbstractMBArrow(World par1World) {
         super(par1World);
     }
@@ -58,19 +81,15 @@ public abstract class AbstractMBArrow extends EntityArrow {
                 && skeleton.getAttackTarget() != null
                 && type < ItemMBArrow.arrows.length) {
             try {
-                mbArrow = ItemMBArrow.arrows[type].getConstructor(
-                        World.class,
-                        EntityLivingBase.class,
-                        EntityLivingBase.class,
-                        float.class,
-                        float.class).newInstance(
-                                arrow.worldObj,
-                                skeleton,
-                                skeleton.getAttackTarget(),
-                                1.6F,
-                                (float) (14 - skeleton.worldObj.difficultySetting.getDifficultyId() * 4));
-            } catch (Exception e) {
-                e.printStackTrace();
+                mbArrow = (AbstractMBArrow) skeletonFired[type].invokeExact(
+                        arrow.worldObj,
+                        (EntityLivingBase) skeleton,
+                        skeleton.getAttackTarget(),
+                        1.6F,
+                        (float) (14 - skeleton.worldObj.difficultySetting.getDifficultyId() * 4));
+            } catch (Throwable thrown) {
+                Throwables.propagateIfInstanceOf(thrown, Error.class);
+                thrown.printStackTrace();
             }
         }
         return mbArrow;
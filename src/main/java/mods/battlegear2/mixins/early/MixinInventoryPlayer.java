@@ -25,7 +25,7 @@ import mods.battlegear2.api.core.IInventoryPlayerBattle;
 public abstract class MixinInventoryPlayer implements IInventoryPlayerBattle {
 
     @Unique
-    public boolean battlegear2$isDirty = true;
+    private int battlegear2$dirtySlots = ALL_EXTRA_SLOTS;
     @Unique
     private ItemStack[] battlegear2$extraItems = new ItemStack[EXTRA_INV_SIZE];
 
@@ -101,7 +101,7 @@ public abstract class MixinInventoryPlayer implements IInventoryPlayerBattle {
         if (index >= OFFSET) {
             ItemStack targetStack = battlegear2$extraItems[index - OFFSET];
             if (targetStack != null) {
-                battlegear2$isDirty = true;
+                battlegear2$dirtySlots |= 1 << (index - OFFSET);
                 if (targetStack.stackSize <= count) {
                     battlegear2$extraItems[index - OFFSET] = null;
                 } else {
@@ -120,7 +120,7 @@ public abstract class MixinInventoryPlayer implements IInventoryPlayerBattle {
     @Inject(method = "setInventorySlotContents", at = @At("HEAD"), cancellable = true)
     private void battlegear2$setInventorySlotContents(int index, ItemStack stack, CallbackInfo ci) {
         if (index >= OFFSET) {
-            battlegear2$isDirty = true;
+            battlegear2$dirtySlots |= 1 << (index - OFFSET);
             battlegear2$extraItems[index - OFFSET] = stack;
             ci.cancel();
         }
@@ -129,7 +129,8 @@ public abstract class MixinInventoryPlayer implements IInventoryPlayerBattle {
     @Override
     public void battlegear2$setInventorySlotContents(int index, ItemStack stack, boolean changed) {
         if (index >= OFFSET) {
-            battlegear2$isDirty = changed;
+            if (changed) battlegear2$dirtySlots |= 1 << (index - OFFSET);
+            else battlegear2$dirtySlots &= ~(1 << (index - OFFSET));
             battlegear2$extraItems[index - OFFSET] = stack;
         } else {
             this.setInventorySlotContents(index, stack);
@@ -145,9 +146,9 @@ public abstract class MixinInventoryPlayer implements IInventoryPlayerBattle {
                     && (targetDamage <= -1 || battlegear2$extraItems[i].getItemDamage() == targetDamage)) {
                 stacks += battlegear2$extraItems[i].stackSize;
                 battlegear2$extraItems[i] = null;
+                battlegear2$dirtySlots |= 1 << i;
             }
         }
-        battlegear2$isDirty = stacks > 0;
         return original + stacks;
     }
 
@@ -162,7 +163,7 @@ public abstract class MixinInventoryPlayer implements IInventoryPlayerBattle {
     private void battlegear2$consumeInventoryItem(Item item, CallbackInfoReturnable<Boolean> cir) {
         int j = battlegear2$getInventorySlotContainItem(item);
         if (j >= 0) {
-            this.battlegear2$isDirty = true;
+            this.battlegear2$dirtySlots |= 1 << j;
             if (--this.battlegear2$extraItems[j].stackSize <= 0) {
                 this.battlegear2$extraItems[j] = null;
             }
@@ -172,9 +173,9 @@ public abstract class MixinInventoryPlayer implements IInventoryPlayerBattle {
 
     @Inject(method = "dropAllItems", at = @At("RETURN"))
     private void battlegear2$dropAllItems(CallbackInfo ci) {
-        this.battlegear2$isDirty = true;
         for (int i = 0; i < this.battlegear2$extraItems.length; ++i) {
             if (this.battlegear2$extraItems[i] != null) {
+                this.battlegear2$dirtySlots |= 1 << i;
                 this.player.func_146097_a(this.battlegear2$extraItems[i], true, false);
                 this.battlegear2$extraItems[i] = null;
             }
@@ -225,12 +226,22 @@ public abstract class MixinInventoryPlayer implements IInventoryPlayerBattle {
 
     @Override
     public boolean battlegear2$isDirty() {
-        return battlegear2$isDirty;
+        return battlegear2$dirtySlots != 0;
     }
 
     @Override
     public void battlegear2$setDirty(boolean dirty) {
-        this.battlegear2$isDirty = dirty;
+        this.battlegear2$dirtySlots = dirty ? ALL_EXTRA_SLOTS : 0;
+    }
+
+    @Override
+    public int battlegear2$getDirtySlots() {
+        return battlegear2$dirtySlots;
+    }
+
+    @Override
+    public void battlegear2$setDirtySlots(int slots) {
+        this.battlegear2$dirtySlots = slots & ALL_EXTRA_SLOTS;
     }
 
     /**
@@ -1,9 +1,13 @@
 package mods.battlegear2.packet;
 
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
 
+import cpw.mods.fml.common.network.ByteBufUtils;
 import cpw.mods.fml.common.network.internal.FMLProxyPacket;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 
 /**
@@ -11,15 +15,85 @@ import io.netty.buffer.Unpooled;
  */
 public abstract class AbstractMBPacket {
 
+    /**
+     * A guess of the encoded size of an {@link net.minecraft.item.ItemStack} without much NBT, for
+     * {@link #estimateSize()}
+     */
+    protected static final int STACK_SIZE = 32;
+
+    /**
+     * Encodes this packet once, the result can be sent to any number of players. The payload is written in a pooled
+     * buffer, then copied to an array of the exact size, since FML sends the whole backing array of the payload.
+     */
     public final FMLProxyPacket generatePacket() {
-        ByteBuf buf = Unpooled.buffer();
-        write(buf);
-        return new FMLProxyPacket(buf, getChannel());
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.heapBuffer(estimateSize() + 1);
+        try {
+            buf.writeByte(BattlegearPacketHandeler.getDiscriminator(getClass()));
+            write(buf);
+            byte[] payload = new byte[buf.readableBytes()];
+            buf.readBytes(payload);
+            return new FMLProxyPacket(Unpooled.wrappedBuffer(payload), BattlegearPacketHandeler.CHANNEL);
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * @return the expected size of the data written by {@link #write(ByteBuf)}, to avoid growing the buffer
+     */
+    protected int estimateSize() {
+        return 32;
     }
 
-    public abstract String getChannel();
+    /**
+     * @return an identifier of what this packet is about, for {@link OutboundQueue} to merge the packets about the same
+     *         subject sent to a player in a tick, or null if this packet should never be merged
+     */
+    protected Object getCoalescingKey() {
+        return null;
+    }
+
+    /**
+     * Merge with a packet queued earlier in the tick, for the same receiver and with the same coalescing key
+     *
+     * @param previous the earlier packet, of the same type
+     * @return the packet to send instead of both, this one by default as it carries the latest state
+     */
+    protected AbstractMBPacket mergeWith(AbstractMBPacket previous) {
+        return this;
+    }
 
     public abstract void write(ByteBuf out);
 
-    public abstract void process(ByteBuf in, EntityPlayer player);
+    /**
+     * Decode the payload into this packet, called on a new instance for each received packet
+     *
+     * @param player the player of the receiving side, whose world holds the entities referenced by the packet
+     */
+    public abstract void read(ByteBuf in, EntityPlayer player);
+
+    /**
+     * Act on the packet, once {@link #read(ByteBuf, EntityPlayer)} has decoded it
+     *
+     * @param player the player of the receiving side
+     */
+    public abstract void handle(EntityPlayer player);
+
+    /**
+     * Writes a player as a varint of its entity id, for receivers sharing the player world
+     */
+    protected static void writePlayer(ByteBuf out, EntityPlayer player) {
+        ByteBufUtils.writeVarInt(out, player.getEntityId(), 5);
+    }
+
+    /**
+     * Reads a player written by {@link #writePlayer(ByteBuf, EntityPlayer)}, from the world entity table
+     *
+     * @param world the world to search the player in
+     * @return the player, or null if not found
+     */
+    protected static EntityPlayer readPlayer(ByteBuf in, World world) {
+        Entity entity = world.getEntityByID(ByteBufUtils.readVarInt(in, 5));
+        return entity instanceof EntityPlayer ? (EntityPlayer) entity : null;
+    }
 }
@@ -3,8 +3,10 @@ package mods.battlegear2.packet;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.world.WorldServer;
 
-import cpw.mods.fml.common.network.ByteBufUtils;
+import org.apache.commons.lang3.tuple.Triple;
+
 import io.netty.buffer.ByteBuf;
+import mods.battlegear2.Battlegear;
 import mods.battlegear2.api.core.IBattlePlayer;
 import mods.battlegear2.utils.EnumBGAnimations;
 
@@ -13,45 +15,43 @@ import mods.battlegear2.utils.EnumBGAnimations;
  */
 public final class BattlegearAnimationPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|Animation";
     private EnumBGAnimations animation;
-    private String username;
+    private EntityPlayer user;
 
     public BattlegearAnimationPacket(EnumBGAnimations animation, EntityPlayer user) {
         this.animation = animation;
-        this.username = user.getCommandSenderName();
+        this.user = user;
     }
 
     public BattlegearAnimationPacket() {}
 
     @Override
-    public void process(ByteBuf in, EntityPlayer player) {
-        try {
-            animation = EnumBGAnimations.values()[in.readInt()];
-            username = ByteBufUtils.readUTF8String(in);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
-        }
-        if (username != null && animation != null) {
-            EntityPlayer entity = player.worldObj.getPlayerEntityByName(username);
-            if (entity != null) {
-                if (entity.worldObj instanceof WorldServer) {
-                    ((WorldServer) entity.worldObj).getEntityTracker().func_151247_a(entity, this.generatePacket());
-                }
-                animation.processAnimation((IBattlePlayer) entity);
+    public void read(ByteBuf in, EntityPlayer player) {
+        animation = EnumBGAnimations.values()[in.readInt()];
+        user = readPlayer(in, player.worldObj);
+    }
+
+    @Override
+    public void handle(EntityPlayer player) {
+        if (user != null && animation != null) {
+            if (user.worldObj instanceof WorldServer) {
+                Battlegear.packetHandler.queuePacketToTrackers(user, this, false);
             }
+            animation.processAnimation((IBattlePlayer) user);
         }
     }
 
+    /**
+     * Repeated animations of a player within a tick are shown once
+     */
     @Override
-    public String getChannel() {
-        return packetName;
+    protected Object getCoalescingKey() {
+        return Triple.of(BattlegearAnimationPacket.class, user, animation);
     }
 
     @Override
     public void write(ByteBuf out) {
         out.writeInt(animation.ordinal());
-        ByteBufUtils.writeUTF8String(out, username);
+        writePlayer(out, user);
     }
 }
@@ -13,7 +13,6 @@ import mods.battlegear2.api.heraldry.IFlagHolder;
 
 public final class BattlegearBannerPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|Banner";
     private int posX, posY, posZ;
     private List<ItemStack> parts = new ArrayList<ItemStack>();
 
@@ -27,8 +26,8 @@ public final class BattlegearBannerPacket extends AbstractMBPacket {
     }
 
     @Override
-    public String getChannel() {
-        return packetName;
+    protected int estimateSize() {
+        return 13 + STACK_SIZE * parts.size();
     }
 
     @Override
@@ -43,18 +42,18 @@ public final class BattlegearBannerPacket extends AbstractMBPacket {
     }
 
     @Override
-    public void process(ByteBuf in, EntityPlayer player) {
-        try {
-            posX = in.readInt();
-            posY = in.readInt();
-            posZ = in.readInt();
-            int size = in.readByte();
-            for (int i = 0; i < size; i++) {
-                parts.add(ByteBufUtils.readItemStack(in));
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    public void read(ByteBuf in, EntityPlayer player) {
+        posX = in.readInt();
+        posY = in.readInt();
+        posZ = in.readInt();
+        int size = in.readByte();
+        for (int i = 0; i < size; i++) {
+            parts.add(ByteBufUtils.readItemStack(in));
         }
+    }
+
+    @Override
+    public void handle(EntityPlayer player) {
         TileEntity te = player.worldObj.getTileEntity(posX, posY, posZ);
         if (te instanceof IFlagHolder) {
             ((IFlagHolder) te).clearFlags();
@@ -8,7 +8,6 @@ import mods.battlegear2.api.heraldry.IHeraldryItem;
 
 public final class BattlegearChangeHeraldryPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|Heraldry";
     private byte[] data;
 
     public BattlegearChangeHeraldryPacket() {}
@@ -18,8 +17,8 @@ public final class BattlegearChangeHeraldryPacket extends AbstractMBPacket {
     }
 
     @Override
-    public String getChannel() {
-        return packetName;
+    protected int estimateSize() {
+        return 4 + data.length;
     }
 
     @Override
@@ -29,14 +28,13 @@ public final class BattlegearChangeHeraldryPacket extends AbstractMBPacket {
     }
 
     @Override
-    public void process(ByteBuf in, EntityPlayer player) {
-        try {
-            data = new byte[in.readInt()];
-            in.readBytes(data);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
-        }
+    public void read(ByteBuf in, EntityPlayer player) {
+        data = new byte[in.readInt()];
+        in.readBytes(data);
+    }
+
+    @Override
+    public void handle(EntityPlayer player) {
         if (player != null) {
             ItemStack targetEquip = player.getCurrentEquippedItem();
             if (targetEquip != null && targetEquip.getItem() instanceof IHeraldryItem) {
@@ -10,8 +10,6 @@ import mods.battlegear2.Battlegear;
  */
 public final class BattlegearGUIPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|GUI";
-
     public BattlegearGUIPacket(int equipid) {
         this.equipid = equipid;
     }
@@ -21,16 +19,15 @@ public final class BattlegearGUIPacket extends AbstractMBPacket {
     private int equipid = -1;
 
     @Override
-    public void process(ByteBuf in, EntityPlayer player) {
+    public void read(ByteBuf in, EntityPlayer player) {
         equipid = in.readInt();
-        if (equipid != -1) {
-            player.openGui(Battlegear.INSTANCE, equipid, player.worldObj, 0, 0, 0);
-        }
     }
 
     @Override
-    public String getChannel() {
-        return packetName;
+    public void handle(EntityPlayer player) {
+        if (equipid != -1) {
+            player.openGui(Battlegear.INSTANCE, equipid, player.worldObj, 0, 0, 0);
+        }
     }
 
     @Override
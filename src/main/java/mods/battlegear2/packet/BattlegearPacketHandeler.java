@@ -1,11 +1,25 @@
 package mods.battlegear2.packet;
 
-import java.util.Hashtable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityTrackerEntry;
+import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.network.NetHandlerPlayServer;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.WorldServer;
+
+import com.google.common.base.Throwables;
 
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 import cpw.mods.fml.common.network.FMLEventChannel;
@@ -13,64 +27,363 @@ import cpw.mods.fml.common.network.FMLNetworkEvent;
 import cpw.mods.fml.common.network.NetworkRegistry;
 import cpw.mods.fml.common.network.internal.FMLProxyPacket;
 import cpw.mods.fml.relauncher.Side;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 import mods.battlegear2.Battlegear;
+import mods.battlegear2.utils.BattlegearConfig;
 
+/**
+ * Sends all packets through a single channel, each payload starting with a discriminator byte for its type. Received
+ * payloads are queued by the network threads, then a new packet instance is built for each of them on the game thread,
+ * when {@link #processPackets(Side)} is called by the tick handlers.
+ */
 public final class BattlegearPacketHandeler {
 
-    private final Map<String, AbstractMBPacket> map = new Hashtable<String, AbstractMBPacket>();
-    private final Map<String, FMLEventChannel> channels = new Hashtable<String, FMLEventChannel>();
+    public static final String CHANNEL = Battlegear.MODID;
+    private static final AttributeKey<Sender> SENDER = new AttributeKey<Sender>("battlegear2:sender");
+    private static final MethodType FACTORY = MethodType.methodType(AbstractMBPacket.class);
+    /**
+     * The no-argument constructors of the packet types, by discriminator
+     */
+    private static final List<MethodHandle> factories = new ArrayList<MethodHandle>();
+    private static final List<Class<? extends AbstractMBPacket>> types = new ArrayList<Class<? extends AbstractMBPacket>>();
+    private static final Set<Class<? extends AbstractMBPacket>> fromClients = new HashSet<Class<? extends AbstractMBPacket>>();
+    private static final Map<Class<? extends AbstractMBPacket>, Integer> discriminators = new IdentityHashMap<Class<? extends AbstractMBPacket>, Integer>();
+
+    static {
+        // Append only, discriminators must stay the same on both sides
+        register(BattlegearSyncItemPacket.class, true);
+        register(BattlegearAnimationPacket.class, true);
+        register(BattlegearBannerPacket.class, false);
+        register(BattlegearChangeHeraldryPacket.class, true);
+        register(BattlegearGUIPacket.class, true);
+        register(BattlegearShieldBlockPacket.class, true);
+        register(BattlegearShieldFlashPacket.class, false);
+        register(SpecialActionPacket.class, true);
+        register(LoginPacket.class, false);
+        register(OffhandPlaceBlockPacket.class, true);
+        register(PickBlockPacket.class, true);
+        register(WieldSetPacket.class, false);
+        register(InventoryDigestPacket.class, true);
+    }
+
+    private FMLEventChannel channel;
+    private final OutboundQueue queue = new OutboundQueue();
+    private final RateLimiter limiter = new RateLimiter(factories.size());
+    private volatile PacketQueue serverQueue = new PacketQueue(
+            BattlegearConfig.packetQueueSize,
+            BattlegearConfig.packetQueueSize);
+    private final PacketQueue clientQueue = new PacketQueue(
+            BattlegearConfig.packetQueueSize,
+            BattlegearConfig.packetQueueSize);
+    private final PacketStats serverStats, clientStats;
+    private final AtomicLong malformed = new AtomicLong();
+    /**
+     * If an empty or unknown packet from the server was logged already, only used by the client network thread
+     */
+    private boolean warnedMalformed;
 
     public BattlegearPacketHandeler() {
-        map.put(BattlegearSyncItemPacket.packetName, new BattlegearSyncItemPacket());
-        map.put(BattlegearAnimationPacket.packetName, new BattlegearAnimationPacket());
-        map.put(BattlegearBannerPacket.packetName, new BattlegearBannerPacket());
-        map.put(BattlegearChangeHeraldryPacket.packetName, new BattlegearChangeHeraldryPacket());
-        map.put(BattlegearGUIPacket.packetName, new BattlegearGUIPacket());
-        map.put(BattlegearShieldBlockPacket.packetName, new BattlegearShieldBlockPacket());
-        map.put(BattlegearShieldFlashPacket.packetName, new BattlegearShieldFlashPacket());
-        map.put(SpecialActionPacket.packetName, new SpecialActionPacket());
-        map.put(LoginPacket.packetName, new LoginPacket());
-        map.put(OffhandPlaceBlockPacket.packetName, new OffhandPlaceBlockPacket());
-        map.put(PickBlockPacket.packetName, new PickBlockPacket());
-        map.put(WieldSetPacket.packetName, new WieldSetPacket());
+        String[] names = new String[types.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = types.get(i).getSimpleName();
+        }
+        serverStats = new PacketStats(names);
+        clientStats = new PacketStats(names);
+        setRateLimit(BattlegearShieldBlockPacket.class, BattlegearConfig.shieldBlockPacketRate);
+        setRateLimit(BattlegearAnimationPacket.class, BattlegearConfig.animationPacketRate);
+        setRateLimit(SpecialActionPacket.class, BattlegearConfig.specialActionPacketRate);
+        setRateLimit(OffhandPlaceBlockPacket.class, BattlegearConfig.offhandPlacePacketRate);
+        setRateLimit(BattlegearSyncItemPacket.class, BattlegearConfig.syncItemPacketRate);
+        setRateLimit(PickBlockPacket.class, BattlegearConfig.pickBlockPacketRate);
+        setRateLimit(BattlegearGUIPacket.class, BattlegearConfig.guiPacketRate);
+        setRateLimit(BattlegearChangeHeraldryPacket.class, BattlegearConfig.heraldryPacketRate);
+        setRateLimit(InventoryDigestPacket.class, BattlegearConfig.digestPacketRate);
+        // Only sent by the server
+        for (Class<? extends AbstractMBPacket> type : types) {
+            if (!fromClients.contains(type)) {
+                limiter.refuse(getDiscriminator(type), type.getSimpleName());
+            }
+        }
     }
 
-    public void register() {
-        FMLEventChannel eventChannel;
-        for (String channel : map.keySet()) {
-            eventChannel = NetworkRegistry.INSTANCE.newEventDrivenChannel(channel);
-            eventChannel.register(this);
-            channels.put(channel, eventChannel);
+    /**
+     * @param fromClient if clients can send this type, else the server drops it unread
+     */
+    private static void register(Class<? extends AbstractMBPacket> type, boolean fromClient) {
+        try {
+            factories.add(
+                    MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class))
+                            .asType(FACTORY));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " has no public constructor without parameters", e);
+        }
+        discriminators.put(type, types.size());
+        types.add(type);
+        if (fromClient) {
+            fromClients.add(type);
         }
     }
 
+    /**
+     * @return the byte written first in the payloads of the given packet type
+     */
+    static int getDiscriminator(Class<? extends AbstractMBPacket> type) {
+        Integer discriminator = discriminators.get(type);
+        if (discriminator == null) {
+            throw new IllegalArgumentException(type.getName() + " is not a registered packet");
+        }
+        return discriminator;
+    }
+
+    /**
+     * @return the packet type written with the given discriminator
+     */
+    public static Class<? extends AbstractMBPacket> getPacketType(int discriminator) {
+        return types.get(discriminator);
+    }
+
+    /**
+     * Limit how many packets of the given type each client can send per second, the excess being dropped unread
+     *
+     * @param perSecond the limit, or 0 for none
+     */
+    public void setRateLimit(Class<? extends AbstractMBPacket> type, int perSecond) {
+        limiter.setRate(getDiscriminator(type), type.getSimpleName(), perSecond);
+    }
+
+    /**
+     * @return how many packets of the given type were dropped for going over the rate limit, all clients included
+     */
+    public long getDroppedPackets(Class<? extends AbstractMBPacket> type) {
+        return limiter.getDropped(getDiscriminator(type));
+    }
+
+    public void register() {
+        channel = NetworkRegistry.INSTANCE.newEventDrivenChannel(CHANNEL);
+        channel.register(this);
+    }
+
     @SubscribeEvent
     public void onServerPacket(FMLNetworkEvent.ServerCustomPacketEvent event) {
-        map.get(event.packet.channel())
-                .process(event.packet.payload(), ((NetHandlerPlayServer) event.handler).playerEntity);
+        EntityPlayer player = ((NetHandlerPlayServer) event.handler).playerEntity;
+        Sender sender = getSender(event.manager.channel());
+        ByteBuf payload = event.packet.payload();
+        int size = payload.readableBytes();
+        int discriminator = size > 0 ? payload.readUnsignedByte() : -1;
+        if (!isKnown(discriminator)) {
+            if (!sender.warnedMalformed) {
+                sender.warnedMalformed = true;
+                Battlegear.logger.warn(
+                        player.getCommandSenderName()
+                                + " sent an empty or unknown packet, dropping it and any other such packet");
+            }
+            return;
+        }
+        serverStats.recordIn(discriminator, size, player);
+        if (limiter.tryAcquire(player, sender, discriminator)) {
+            serverQueue.offer(discriminator, payload.copy(), player, sender.waiting);
+        }
+    }
+
+    /**
+     * @return the state of the client connection, created on its first packet
+     */
+    private Sender getSender(Channel connection) {
+        Attribute<Sender> attribute = connection.attr(SENDER);
+        Sender sender = attribute.get();
+        if (sender == null) {
+            Sender created = new Sender(limiter.getTypeCount());
+            sender = attribute.setIfAbsent(created);
+            if (sender == null) {
+                sender = created;
+            }
+        }
+        return sender;
     }
 
     @SubscribeEvent
     public void onClientPacket(FMLNetworkEvent.ClientCustomPacketEvent event) {
-        map.get(event.packet.channel()).process(event.packet.payload(), Battlegear.proxy.getClientPlayer());
+        ByteBuf payload = event.packet.payload();
+        int size = payload.readableBytes();
+        int discriminator = size > 0 ? payload.readUnsignedByte() : -1;
+        if (isKnown(discriminator)) {
+            clientStats.recordIn(discriminator, size, null);
+            clientQueue.offer(discriminator, payload.copy(), null, null);
+        } else if (!warnedMalformed) {
+            warnedMalformed = true;
+            Battlegear.logger.warn("Received an empty or unknown packet from the server, dropping any such packet");
+        }
+    }
+
+    /**
+     * Count the empty payloads, marked by a negative discriminator, and the unknown packet types
+     *
+     * @return true if the discriminator is a registered packet type
+     */
+    private boolean isKnown(int discriminator) {
+        if (discriminator < 0 || discriminator >= factories.size()) {
+            malformed.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return how many empty packets or packets of an unknown type were dropped, on both sides
+     */
+    public long getMalformedPackets() {
+        return malformed.get();
+    }
+
+    /**
+     * @return the queue of packets received on the given side, waiting for the game thread
+     */
+    public PacketQueue getPacketQueue(Side side) {
+        return side.isServer() ? serverQueue : clientQueue;
+    }
+
+    /**
+     * Size the server queue for a full server, so that every player can fill its share of it
+     */
+    public void onServerStarting(int maxPlayers) {
+        int perPlayer = BattlegearConfig.packetQueueSize;
+        serverQueue = new PacketQueue((int) Math.min((long) perPlayer * Math.max(maxPlayers, 1), 1 << 30), perPlayer);
+    }
+
+    /**
+     * @return the traffic counters of the given side
+     */
+    public PacketStats getStats(Side side) {
+        return side.isServer() ? serverStats : clientStats;
+    }
+
+    /**
+     * Process the packets received on the given side since the last call, from the game thread of that side. At most
+     * a full queue is processed, so that packets arriving meanwhile wait for the next tick.
+     */
+    public void processPackets(Side side) {
+        PacketQueue queue = getPacketQueue(side);
+        EntityPlayer clientPlayer = side.isClient() ? Battlegear.proxy.getClientPlayer() : null;
+        long start = System.nanoTime();
+        int count = 0;
+        PacketQueue.Entry entry;
+        while (count < queue.getCapacity() && (entry = queue.poll()) != null) {
+            count++;
+            EntityPlayer player = side.isClient() ? clientPlayer : entry.player;
+            if (player != null) { // Client packets left from a closed world are dropped
+                process(entry.discriminator, entry.payload, player);
+            }
+        }
+        long dropped = queue.onDrained(count, System.nanoTime() - start);
+        if (dropped > 0) {
+            Battlegear.logger.warn(
+                    "Dropped " + dropped
+                            + " packets received on "
+                            + side
+                            + ", too many were waiting from their sender");
+        }
+    }
+
+    private void process(int discriminator, ByteBuf payload, EntityPlayer player) {
+        AbstractMBPacket packet;
+        try {
+            packet = (AbstractMBPacket) factories.get(discriminator).invokeExact();
+        } catch (Throwable thrown) {
+            throw Throwables.propagate(thrown);
+        }
+        try {
+            packet.read(payload, player);
+        } catch (RuntimeException e) { // Malformed data shouldn't stop the game thread
+            Battlegear.logger.error("Failed to read " + packet.getClass().getSimpleName() + " for " + player, e);
+            return;
+        }
+        try {
+            packet.handle(player);
+        } catch (RuntimeException e) {
+            Battlegear.logger.error("Failed to handle " + packet.getClass().getSimpleName() + " for " + player, e);
+        }
     }
 
     public void sendPacketToPlayer(FMLProxyPacket packet, EntityPlayerMP player) {
-        channels.get(packet.channel()).sendTo(packet, player);
+        serverStats.recordOut(packet.payload().getUnsignedByte(0), packet.payload().readableBytes(), player);
+        channel.sendTo(packet, player);
     }
 
     public void sendPacketToServer(FMLProxyPacket packet) {
+        clientStats.recordOut(packet.payload().getUnsignedByte(0), packet.payload().readableBytes(), null);
         packet.setTarget(Side.SERVER);
-        channels.get(packet.channel()).sendToServer(packet);
+        channel.sendToServer(packet);
     }
 
+    /**
+     * Sent to each player in range one by one, to count the traffic by player
+     */
     public void sendPacketAround(Entity entity, double range, FMLProxyPacket packet) {
-        channels.get(packet.channel()).sendToAllAround(
-                packet,
-                new NetworkRegistry.TargetPoint(entity.dimension, entity.posX, entity.posY, entity.posZ, range));
+        for (Object player : MinecraftServer.getServer().getConfigurationManager().playerEntityList) {
+            if (((EntityPlayerMP) player).dimension == entity.dimension
+                    && ((EntityPlayerMP) player).getDistanceSqToEntity(entity) < range * range) {
+                sendPacketToPlayer(packet, (EntityPlayerMP) player);
+            }
+        }
     }
 
+    /**
+     * Sent to each player one by one, to count the traffic by player
+     */
     public void sendPacketToAll(FMLProxyPacket packet) {
-        channels.get(packet.channel()).sendToAll(packet);
+        for (Object player : MinecraftServer.getServer().getConfigurationManager().playerEntityList) {
+            sendPacketToPlayer(packet, (EntityPlayerMP) player);
+        }
+    }
+
+    /**
+     * Send a packet to a player at the end of the server tick, merged with the other packets about the same subject
+     */
+    public void queuePacket(AbstractMBPacket packet, EntityPlayerMP player) {
+        queue.add(player, packet);
+    }
+
+    /**
+     * Send a packet to the players tracking an entity at the end of the server tick, see
+     * {@link #queuePacket(AbstractMBPacket, EntityPlayerMP)}
+     *
+     * @param self if the entity should get the packet too, when it is a player
+     */
+    public void queuePacketToTrackers(Entity entity, AbstractMBPacket packet, boolean self) {
+        if (self && entity instanceof EntityPlayerMP) {
+            queue.add((EntityPlayerMP) entity, packet);
+        }
+        if (entity.worldObj instanceof WorldServer) {
+            EntityTrackerEntry entry = (EntityTrackerEntry) ((WorldServer) entity.worldObj).getEntityTracker()
+                    .trackedEntityIDs.lookup(entity.getEntityId());
+            if (entry != null) {
+                for (Object tracking : entry.trackingPlayers) {
+                    queue.add((EntityPlayerMP) tracking, packet);
+                }
+            }
+        }
+    }
+
+    /**
+     * Send a packet to the players around an entity at the end of the server tick, see
+     * {@link #queuePacket(AbstractMBPacket, EntityPlayerMP)}
+     */
+    public void queuePacketAround(Entity entity, double range, AbstractMBPacket packet) {
+        for (Object player : entity.worldObj.playerEntities) {
+            if (player instanceof EntityPlayerMP
+                    && ((EntityPlayerMP) player).getDistanceSqToEntity(entity) < range * range) {
+                queue.add((EntityPlayerMP) player, packet);
+            }
+        }
+    }
+
+    /**
+     * Send the packets queued during the server tick
+     */
+    public void flushQueue() {
+        queue.flush();
     }
 }
@@ -3,51 +3,48 @@ package mods.battlegear2.packet;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.world.WorldServer;
 
-import cpw.mods.fml.common.network.ByteBufUtils;
+import org.apache.commons.lang3.tuple.Pair;
+
 import io.netty.buffer.ByteBuf;
+import mods.battlegear2.Battlegear;
 import mods.battlegear2.api.core.IBattlePlayer;
 
 public final class BattlegearShieldBlockPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|Block";
     private boolean block;
-    private String username;
+    private EntityPlayer user;
 
     public BattlegearShieldBlockPacket(boolean block, EntityPlayer user) {
         this.block = block;
-        this.username = user.getCommandSenderName();
+        this.user = user;
     }
 
     public BattlegearShieldBlockPacket() {}
 
     @Override
-    public void process(ByteBuf in, EntityPlayer player) {
-        try {
-            block = in.readBoolean();
-            username = ByteBufUtils.readUTF8String(in);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
-        }
-        if (username != null) {
-            EntityPlayer entity = player.worldObj.getPlayerEntityByName(username);
-            if (entity != null) {
-                if (entity.worldObj instanceof WorldServer) {
-                    ((WorldServer) entity.worldObj).getEntityTracker().func_151248_b(entity, this.generatePacket());
-                }
-                ((IBattlePlayer) entity).battlegear2$setBlockingWithShield(block);
+    public void read(ByteBuf in, EntityPlayer player) {
+        block = in.readBoolean();
+        user = readPlayer(in, player.worldObj);
+    }
+
+    @Override
+    public void handle(EntityPlayer player) {
+        if (user != null) {
+            if (user.worldObj instanceof WorldServer) {
+                Battlegear.packetHandler.queuePacketToTrackers(user, this, true);
             }
+            ((IBattlePlayer) user).battlegear2$setBlockingWithShield(block);
         }
     }
 
     @Override
-    public String getChannel() {
-        return packetName;
+    protected Object getCoalescingKey() {
+        return Pair.of(BattlegearShieldBlockPacket.class, user);
     }
 
     @Override
     public void write(ByteBuf out) {
         out.writeBoolean(block);
-        ByteBufUtils.writeUTF8String(out, username);
+        writePlayer(out, user);
     }
 }
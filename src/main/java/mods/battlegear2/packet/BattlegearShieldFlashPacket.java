@@ -2,44 +2,50 @@ package mods.battlegear2.packet;
 
 import net.minecraft.entity.player.EntityPlayer;
 
-import cpw.mods.fml.common.network.ByteBufUtils;
+import org.apache.commons.lang3.tuple.Pair;
+
 import io.netty.buffer.ByteBuf;
 import mods.battlegear2.Battlegear;
 
 public final class BattlegearShieldFlashPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|ShieldFlash";
-    private String username;
+    private EntityPlayer user;
     private float damage;
 
     public BattlegearShieldFlashPacket(EntityPlayer player, float damage) {
-        this.username = player.getCommandSenderName();
+        this.user = player;
         this.damage = damage;
     }
 
     public BattlegearShieldFlashPacket() {}
 
     @Override
-    public void process(ByteBuf in, EntityPlayer player) {
-        try {
-            username = ByteBufUtils.readUTF8String(in);
-            damage = in.readFloat();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
-        }
-        EntityPlayer targetPlayer = player.worldObj.getPlayerEntityByName(username);
-        if (targetPlayer != null) Battlegear.proxy.startFlash(targetPlayer, damage);
+    public void read(ByteBuf in, EntityPlayer player) {
+        user = readPlayer(in, player.worldObj);
+        damage = in.readFloat();
+    }
+
+    @Override
+    public void handle(EntityPlayer player) {
+        if (user != null) Battlegear.proxy.startFlash(user, damage);
+    }
+
+    @Override
+    protected Object getCoalescingKey() {
+        return Pair.of(BattlegearShieldFlashPacket.class, user);
     }
 
+    /**
+     * Flash once for the strongest of the blocked hits
+     */
     @Override
-    public String getChannel() {
-        return packetName;
+    protected AbstractMBPacket mergeWith(AbstractMBPacket previous) {
+        return damage >= ((BattlegearShieldFlashPacket) previous).damage ? this : previous;
     }
 
     @Override
     public void write(ByteBuf out) {
-        ByteBufUtils.writeUTF8String(out, username);
+        writePlayer(out, user);
         out.writeFloat(damage);
     }
 }
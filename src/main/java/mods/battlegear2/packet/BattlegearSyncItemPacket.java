@@ -2,8 +2,11 @@ package mods.battlegear2.packet;
 
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.InventoryPlayer;
+import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
 
+import org.apache.commons.lang3.tuple.Pair;
+
 import cpw.mods.fml.common.network.ByteBufUtils;
 import io.netty.buffer.ByteBuf;
 import mods.battlegear2.api.core.BattlegearUtils;
@@ -15,74 +18,175 @@ import mods.battlegear2.api.core.IInventoryPlayerBattle;
  */
 public final class BattlegearSyncItemPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|SyncItem";
-    private String user;
+    /**
+     * Flag for the current item stack, sent along the extra slots bit mask
+     */
+    private static final int CURRENT_STACK = 1 << 30;
+    /**
+     * A full snapshot: the current item stack and all extra slots
+     */
+    public static final int FULL = CURRENT_STACK | IInventoryPlayerBattle.ALL_EXTRA_SLOTS;
+    /**
+     * What other players see: the current item stack and the weapon sets, either held or sheathed
+     */
+    public static final int OBSERVED = CURRENT_STACK | IInventoryPlayerBattle.WEAPON_SLOTS;
     private InventoryPlayer inventory;
     private EntityPlayer player;
+    private int slots;
+    /**
+     * Decoded until handled
+     */
+    private int current;
+    private ItemStack[] stacks;
+    private ItemStack inUse;
+    private int inUseTime;
 
+    /**
+     * Full snapshot of the player battle inventory
+     */
     public BattlegearSyncItemPacket(EntityPlayer player) {
-        this(player.getCommandSenderName(), player.inventory, player);
+        this(player, FULL);
+    }
+
+    /**
+     * Partial update of the player battle inventory
+     *
+     * @param slots bit mask of the extra slots to send, see {@link IInventoryPlayerBattle#ALL_EXTRA_SLOTS}
+     */
+    public BattlegearSyncItemPacket(EntityPlayer player, int slots) {
+        this(player.inventory, player, slots);
     }
 
-    private BattlegearSyncItemPacket(String user, InventoryPlayer inventory, EntityPlayer player) {
-        this.user = user;
+    private BattlegearSyncItemPacket(InventoryPlayer inventory, EntityPlayer player, int slots) {
         this.inventory = inventory;
         this.player = player;
+        this.slots = slots;
     }
 
     public BattlegearSyncItemPacket() {}
 
     @Override
-    public void process(ByteBuf inputStream, EntityPlayer player) {
-        this.user = ByteBufUtils.readUTF8String(inputStream);
-        this.player = player.worldObj.getPlayerEntityByName(user);
+    public void read(ByteBuf inputStream, EntityPlayer player) {
+        this.player = readPlayer(inputStream, player.worldObj);
+        if (this.player != null) {
+            current = inputStream.readInt();
+            if (player.worldObj.isRemote) {
+                stacks = new ItemStack[IInventoryPlayerBattle.EXTRA_INV_SIZE + 1];
+                slots = readStacks(inputStream, stacks);
+            } else if (isBattlemodeSlot(
+                    IInventoryPlayerBattle.isValidSwitch(current) ? current : this.player.inventory.currentItem)) {
+                // Using data sent only by client
+                inUse = ByteBufUtils.readItemStack(inputStream);
+                inUseTime = inputStream.readInt();
+            }
+        }
+    }
+
+    @Override
+    public void handle(EntityPlayer player) {
         if (this.player != null) {
-            int current = inputStream.readInt();
             if (IInventoryPlayerBattle.isValidSwitch(current)) {
                 this.player.inventory.currentItem = current;
             }
-            if (player.worldObj.isRemote) {
-                ItemStack temp = ByteBufUtils.readItemStack(inputStream);
-                if (!ItemStack.areItemStacksEqual(this.player.getCurrentEquippedItem(), temp))
-                    BattlegearUtils.setPlayerCurrentItem(this.player, temp);
+            if (stacks != null) {
+                if ((slots & CURRENT_STACK) != 0
+                        && !ItemStack.areItemStacksEqual(this.player.getCurrentEquippedItem(), stacks[0]))
+                    BattlegearUtils.setPlayerCurrentItem(this.player, stacks[0]);
 
                 for (int i = 0; i < IInventoryPlayerBattle.EXTRA_INV_SIZE; i++) {
-                    ItemStack stack = ByteBufUtils.readItemStack(inputStream);
+                    if ((slots & (1 << i)) == 0) continue;
+                    ItemStack stack = stacks[i + 1];
                     if (!ItemStack.areItemStacksEqual(
                             this.player.inventory.getStackInSlot(IInventoryPlayerBattle.OFFSET + i),
                             stack))
                         ((IInventoryPlayerBattle) this.player.inventory)
                                 .battlegear2$setInventorySlotContents(IInventoryPlayerBattle.OFFSET + i, stack, false);
                 }
-            } else if (BattlegearUtils.isPlayerInBattlemode(this.player)) { // Using data sent only by client
-                ItemStack inUse = ByteBufUtils.readItemStack(inputStream);
-                int time = inputStream.readInt();
-                if (inUse != null && time > 0) {
-                    this.player.setItemInUse(inUse, time);
-                }
+            } else if (inUse != null && inUseTime > 0) {
+                this.player.setItemInUse(inUse, inUseTime);
             }
             ((IBattlePlayer) this.player).battlegear2$setSpecialActionTimer(0);
         }
     }
 
+    /**
+     * @return true if selecting the given slot puts the player in battlemode, as tested by the sender before writing
+     */
+    private static boolean isBattlemodeSlot(int slot) {
+        return slot >= IInventoryPlayerBattle.OFFSET
+                && slot < IInventoryPlayerBattle.OFFSET + IInventoryPlayerBattle.EXTRA_ITEMS;
+    }
+
+    @Override
+    protected Object getCoalescingKey() {
+        return Pair.of(BattlegearSyncItemPacket.class, player);
+    }
+
+    /**
+     * The stacks are only read when the packet is encoded, so the slots of both packets can be sent at once
+     */
+    @Override
+    protected AbstractMBPacket mergeWith(AbstractMBPacket previous) {
+        int merged = slots | ((BattlegearSyncItemPacket) previous).slots;
+        return merged == slots ? this : new BattlegearSyncItemPacket(inventory, player, merged);
+    }
+
     @Override
-    public String getChannel() {
-        return packetName;
+    protected int estimateSize() {
+        if (!player.worldObj.isRemote) {
+            return 13 + STACK_SIZE * Integer.bitCount(slots & FULL);
+        }
+        return 13 + STACK_SIZE;
     }
 
     @Override
     public void write(ByteBuf out) {
-        ByteBufUtils.writeUTF8String(out, user);
+        writePlayer(out, player);
         out.writeInt(inventory.currentItem);
         if (!player.worldObj.isRemote) {
-            ByteBufUtils.writeItemStack(out, inventory.getCurrentItem());
-
-            for (int i = 0; i < IInventoryPlayerBattle.EXTRA_INV_SIZE; i++) {
-                ByteBufUtils.writeItemStack(out, inventory.getStackInSlot(i + IInventoryPlayerBattle.OFFSET));
-            }
+            writeStacks(out, slots, inventory.getCurrentItem(), inventory);
         } else if (BattlegearUtils.isPlayerInBattlemode(player)) { // client-side only thing
             ByteBufUtils.writeItemStack(out, player.getItemInUse());
             out.writeInt(player.getItemInUseCount());
         }
     }
+
+    /**
+     * Writes the slots mask, followed by the stacks it selects
+     *
+     * @param current   the current item stack, sent if the mask has {@link #CURRENT_STACK}
+     * @param inventory holding the extra slots from {@link IInventoryPlayerBattle#OFFSET}
+     */
+    static void writeStacks(ByteBuf out, int slots, ItemStack current, IInventory inventory) {
+        out.writeInt(slots);
+        if ((slots & CURRENT_STACK) != 0) {
+            ByteBufUtils.writeItemStack(out, current);
+        }
+
+        for (int i = 0; i < IInventoryPlayerBattle.EXTRA_INV_SIZE; i++) {
+            if ((slots & (1 << i)) != 0) {
+                ByteBufUtils.writeItemStack(out, inventory.getStackInSlot(i + IInventoryPlayerBattle.OFFSET));
+            }
+        }
+    }
+
+    /**
+     * Reads the stacks written by {@link #writeStacks(ByteBuf, int, ItemStack, IInventory)}
+     *
+     * @param stacks filled with the current item stack at index 0, then the extra slots, where the mask selects them
+     * @return the slots mask
+     */
+    static int readStacks(ByteBuf in, ItemStack[] stacks) {
+        int slots = in.readInt();
+        if ((slots & CURRENT_STACK) != 0) {
+            stacks[0] = ByteBufUtils.readItemStack(in);
+        }
+
+        for (int i = 0; i < IInventoryPlayerBattle.EXTRA_INV_SIZE; i++) {
+            if ((slots & (1 << i)) != 0) {
+                stacks[i + 1] = ByteBufUtils.readItemStack(in);
+            }
+        }
+        return slots;
+    }
 }
@@ -0,0 +1,150 @@
+package mods.battlegear2.packet;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.entity.EntityTrackerEntry;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.entity.player.InventoryPlayer;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.world.WorldServer;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import cpw.mods.fml.common.network.ByteBufUtils;
+import io.netty.buffer.ByteBuf;
+import mods.battlegear2.Battlegear;
+import mods.battlegear2.api.core.IInventoryPlayerBattle;
+import mods.battlegear2.utils.BattlegearConfig;
+
+/**
+ * Periodic check of a player battle inventory. The server sends a digest of the selected slot and the extra slots,
+ * the client compares it with its own copy and sends the packet back on mismatch, to be answered by a full
+ * {@link BattlegearSyncItemPacket}.
+ */
+public final class InventoryDigestPacket extends AbstractMBPacket {
+
+    /**
+     * World time of the last resync by requester and target, only used on the server thread
+     */
+    private static final Map<EntityPlayer, Map<EntityPlayer, Long>> lastResyncs = new WeakHashMap<EntityPlayer, Map<EntityPlayer, Long>>();
+
+    private EntityPlayer player;
+    private int slots;
+    private long digest;
+
+    public InventoryDigestPacket() {}
+
+    /**
+     * @param slots bit mask of the extra slots to check, see {@link IInventoryPlayerBattle#ALL_EXTRA_SLOTS}
+     */
+    public InventoryDigestPacket(EntityPlayer player, int slots) {
+        this.player = player;
+        this.slots = slots;
+    }
+
+    @Override
+    protected Object getCoalescingKey() {
+        return Pair.of(InventoryDigestPacket.class, player);
+    }
+
+    @Override
+    protected int estimateSize() {
+        return 16;
+    }
+
+    @Override
+    public void write(ByteBuf out) {
+        writePlayer(out, player);
+        ByteBufUtils.writeVarInt(out, slots, 5);
+        // Computed when sent by the server, as queued packets are encoded at the end of the tick
+        out.writeLong(player.worldObj.isRemote ? digest : digest(player.inventory, slots));
+    }
+
+    @Override
+    public void read(ByteBuf in, EntityPlayer player) {
+        this.player = readPlayer(in, player.worldObj);
+        slots = ByteBufUtils.readVarInt(in, 5);
+        digest = in.readLong();
+    }
+
+    @Override
+    public void handle(EntityPlayer player) {
+        if (this.player == null) {
+            return;
+        }
+        if (player.worldObj.isRemote) {
+            if (digest != digest(this.player.inventory, slots)) {
+                Battlegear.packetHandler.sendPacketToServer(generatePacket());
+            }
+        } else if (player instanceof EntityPlayerMP && canResync(player, this.player)) {
+            // Other players only see the weapon sets
+            int requested = this.player == player ? BattlegearSyncItemPacket.FULL : BattlegearSyncItemPacket.OBSERVED;
+            Battlegear.packetHandler.sendPacketToPlayer(
+                    new BattlegearSyncItemPacket(this.player, requested).generatePacket(),
+                    (EntityPlayerMP) player);
+        }
+    }
+
+    /**
+     * A resync is allowed for the requester itself or a player it tracks, once per heartbeat for each of them
+     */
+    private static boolean canResync(EntityPlayer requester, EntityPlayer target) {
+        if (target != requester) {
+            if (!(target.worldObj instanceof WorldServer)) {
+                return false;
+            }
+            EntityTrackerEntry entry = (EntityTrackerEntry) ((WorldServer) target.worldObj).getEntityTracker()
+                    .trackedEntityIDs.lookup(target.getEntityId());
+            if (entry == null || !entry.trackingPlayers.contains(requester)) {
+                return false;
+            }
+        }
+        Map<EntityPlayer, Long> targets = lastResyncs.get(requester);
+        if (targets == null) {
+            targets = new WeakHashMap<EntityPlayer, Long>();
+            lastResyncs.put(requester, targets);
+        }
+        long now = requester.worldObj.getTotalWorldTime();
+        Long last = targets.get(target);
+        if (last != null && now >= last && now - last < BattlegearConfig.updateRate) {
+            return false;
+        }
+        targets.put(target, now);
+        return true;
+    }
+
+    /**
+     * @return a 64 bits hash of the selected slot index and of the given extra slots contents
+     */
+    static long digest(InventoryPlayer inventory, int slots) {
+        long hash = mix(0, inventory.currentItem);
+        for (int i = 0; i < IInventoryPlayerBattle.EXTRA_INV_SIZE; i++) {
+            if ((slots & (1 << i)) == 0) continue;
+            ItemStack stack = inventory.getStackInSlot(IInventoryPlayerBattle.OFFSET + i);
+            if (stack == null || stack.getItem() == null) {
+                hash = mix(hash, 0);
+            } else {
+                hash = mix(hash, Item.getIdFromItem(stack.getItem()) + 1);
+                hash = mix(hash, stack.stackSize << 16 | stack.getItemDamage() & 0xFFFF);
+                hash = mix(hash, hasSharedTag(stack) ? stack.getTagCompound().hashCode() : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return true if the stack tag is sent to clients, with the same rule as {@link ByteBufUtils#writeItemStack}, so
+     *         both sides agree on tags that stay on the server
+     */
+    private static boolean hasSharedTag(ItemStack stack) {
+        return stack.hasTagCompound() && (stack.getItem().isDamageable() || stack.getItem().getShareTag());
+    }
+
+    private static long mix(long hash, int value) {
+        hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+}
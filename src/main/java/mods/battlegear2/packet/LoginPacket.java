@@ -7,10 +7,11 @@ import mods.battlegear2.Battlegear;
 
 public final class LoginPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB|Login";
+    @Override
+    public void read(ByteBuf inputStream, EntityPlayer player) {}
 
     @Override
-    public void process(ByteBuf inputStream, EntityPlayer player) {
+    public void handle(EntityPlayer player) {
         if (player.worldObj.isRemote) {
             Battlegear.battlegearEnabled = true;
         }
@@ -18,11 +19,6 @@ public final class LoginPacket extends AbstractMBPacket {
 
     public LoginPacket() {}
 
-    @Override
-    public String getChannel() {
-        return packetName;
-    }
-
     @Override
     public void write(ByteBuf out) {
         out.writeBytes(new byte[0]);
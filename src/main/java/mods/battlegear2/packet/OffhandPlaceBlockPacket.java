@@ -27,7 +27,6 @@ import mods.battlegear2.api.core.IInventoryPlayerBattle;
 
 public final class OffhandPlaceBlockPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|Place";
     private int xPosition;
     private int yPosition;
     private int zPosition;
@@ -57,8 +56,8 @@ public final class OffhandPlaceBlockPacket extends AbstractMBPacket {
     }
 
     @Override
-    public String getChannel() {
-        return packetName;
+    protected int estimateSize() {
+        return 13 + STACK_SIZE;
     }
 
     @Override
@@ -74,19 +73,19 @@ public final class OffhandPlaceBlockPacket extends AbstractMBPacket {
     }
 
     @Override
-    public void process(ByteBuf in, EntityPlayer player) {
-        try {
-            this.xPosition = in.readInt();
-            this.yPosition = in.readUnsignedByte();
-            this.zPosition = in.readInt();
-            this.direction = in.readUnsignedByte();
-            this.itemStack = ByteBufUtils.readItemStack(in);
-            this.xOffset = (float) in.readUnsignedByte() / 16.0F;
-            this.yOffset = (float) in.readUnsignedByte() / 16.0F;
-            this.zOffset = (float) in.readUnsignedByte() / 16.0F;
-        } catch (Exception io) {
-            return;
-        }
+    public void read(ByteBuf in, EntityPlayer player) {
+        this.xPosition = in.readInt();
+        this.yPosition = in.readUnsignedByte();
+        this.zPosition = in.readInt();
+        this.direction = in.readUnsignedByte();
+        this.itemStack = ByteBufUtils.readItemStack(in);
+        this.xOffset = (float) in.readUnsignedByte() / 16.0F;
+        this.yOffset = (float) in.readUnsignedByte() / 16.0F;
+        this.zOffset = (float) in.readUnsignedByte() / 16.0F;
+    }
+
+    @Override
+    public void handle(EntityPlayer player) {
         if (player == null || !(player instanceof EntityPlayerMP)) return;
         ItemStack offhandWeapon = ((IInventoryPlayerBattle) player.inventory).battlegear2$getCurrentOffhandWeapon();
         boolean flag = true;
@@ -0,0 +1,56 @@
+package mods.battlegear2.packet;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import cpw.mods.fml.common.network.internal.FMLProxyPacket;
+import mods.battlegear2.Battlegear;
+
+/**
+ * Server packets produced during a tick, by receiving player, sent once at the end of the tick. Packets with the same
+ * {@link AbstractMBPacket#getCoalescingKey()} for a player are merged, so a burst of changes about the same subject
+ * costs one packet. Packets are encoded when sent, once per instance whatever the number of receivers.
+ */
+final class OutboundQueue {
+
+    private Map<EntityPlayerMP, Map<Object, AbstractMBPacket>> pending = new LinkedHashMap<EntityPlayerMP, Map<Object, AbstractMBPacket>>();
+
+    synchronized void add(EntityPlayerMP player, AbstractMBPacket packet) {
+        Map<Object, AbstractMBPacket> packets = pending.get(player);
+        if (packets == null) {
+            packets = new LinkedHashMap<Object, AbstractMBPacket>();
+            pending.put(player, packets);
+        }
+        Object key = packet.getCoalescingKey();
+        if (key == null) {
+            key = packet;
+        }
+        AbstractMBPacket previous = packets.get(key);
+        packets.put(key, previous != null ? packet.mergeWith(previous) : packet);
+    }
+
+    void flush() {
+        Map<EntityPlayerMP, Map<Object, AbstractMBPacket>> toSend;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            toSend = pending;
+            pending = new LinkedHashMap<EntityPlayerMP, Map<Object, AbstractMBPacket>>();
+        }
+        Map<AbstractMBPacket, FMLProxyPacket> encoded = new IdentityHashMap<AbstractMBPacket, FMLProxyPacket>();
+        for (Map.Entry<EntityPlayerMP, Map<Object, AbstractMBPacket>> entry : toSend.entrySet()) {
+            for (AbstractMBPacket packet : entry.getValue().values()) {
+                FMLProxyPacket proxy = encoded.get(packet);
+                if (proxy == null) {
+                    proxy = packet.generatePacket();
+                    encoded.put(packet, proxy);
+                }
+                Battlegear.packetHandler.sendPacketToPlayer(proxy, entry.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package mods.battlegear2.packet;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.minecraft.entity.player.EntityPlayer;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Bounded lock-free queue of received packets, filled by the network threads and drained by the game thread. Each slot
+ * carries a sequence number telling whether it is free for the next producer or filled for the consumer, so producers
+ * only race on the tail index. Each sending player can only have a share of the queue waiting, so that a flooding
+ * client only loses its own packets, the count of waiting packets being kept by its {@link Sender}. Packets over the
+ * bounds are dropped and counted.
+ */
+public final class PacketQueue {
+
+    private final int mask;
+    private final AtomicReferenceArray<Entry> entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final int perSender;
+    /**
+     * Only moved by the consumer
+     */
+    private volatile long head;
+    private final AtomicLong rejected = new AtomicLong();
+    private long reportedRejected;
+    private volatile long drained, lastDrainNanos, maxDrainNanos;
+
+    /**
+     * @param capacity  rounded up to a power of two
+     * @param perSender how many packets of a single player can wait
+     */
+    PacketQueue(int capacity, int perSender) {
+        this.perSender = perSender;
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mask = size - 1;
+        entries = new AtomicReferenceArray<Entry>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Called by any thread
+     *
+     * @param payload the packet data following the discriminator, owned by the queue
+     * @param player  the sending player, or null to use the client player when processed
+     * @param sent    the count of packets waiting from the same connection, or null for packets from the server
+     * @return false if the queue, or the share of the player, was full and the packet dropped
+     */
+    boolean offer(int discriminator, ByteBuf payload, EntityPlayer player, AtomicInteger sent) {
+        if (sent != null) {
+            if (sent.incrementAndGet() > perSender) {
+                sent.decrementAndGet();
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long free = sequences.get(index) - position;
+            if (free == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries.set(index, new Entry(discriminator, payload, player, sent));
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (free < 0) {
+                if (sent != null) {
+                    sent.decrementAndGet();
+                }
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Called by the consumer thread only
+     *
+     * @return the oldest packet, or null if none is ready
+     */
+    Entry poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        Entry entry = entries.get(index);
+        entries.lazySet(index, null);
+        sequences.lazySet(index, position + mask + 1);
+        head = position + 1;
+        if (entry.sent != null) {
+            entry.sent.decrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Record a drain of the queue, for the metrics
+     *
+     * @return the number of packets dropped since the previous drain, as the queue or the share of their sender was
+     *         full
+     */
+    long onDrained(int count, long nanos) {
+        drained += count;
+        lastDrainNanos = nanos;
+        if (nanos > maxDrainNanos) {
+            maxDrainNanos = nanos;
+        }
+        long total = rejected.get();
+        long dropped = total - reportedRejected;
+        reportedRejected = total;
+        return dropped;
+    }
+
+    /**
+     * @return the number of packets waiting, approximate while network threads are adding more
+     */
+    public int getDepth() {
+        return (int) Math.max(tail.get() - head, 0);
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return how many packets of a single player can wait
+     */
+    public int getCapacityPerSender() {
+        return perSender;
+    }
+
+    /**
+     * @return the number of packets processed so far
+     */
+    public long getDrained() {
+        return drained;
+    }
+
+    /**
+     * @return the number of packets dropped so far, as the queue or the share of their sender was full
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the time taken by the last drain, in nanoseconds
+     */
+    public long getLastDrainNanos() {
+        return lastDrainNanos;
+    }
+
+    /**
+     * @return the time taken by the longest drain, in nanoseconds
+     */
+    public long getMaxDrainNanos() {
+        return maxDrainNanos;
+    }
+
+    static final class Entry {
+
+        final int discriminator;
+        final ByteBuf payload;
+        final EntityPlayer player;
+        private final AtomicInteger sent;
+
+        private Entry(int discriminator, ByteBuf payload, EntityPlayer player, AtomicInteger sent) {
+            this.discriminator = discriminator;
+            this.payload = payload;
+            this.player = player;
+            this.sent = sent;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package mods.battlegear2.packet;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import net.minecraft.entity.player.EntityPlayer;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Counters of the packets received and sent on one side, by packet type and by player, with histograms of the payload
+ * sizes. Sizes include the discriminator byte, but not the headers added by Minecraft and FML.
+ */
+public final class PacketStats {
+
+    public static final int PACKETS_IN = 0, BYTES_IN = 1, PACKETS_OUT = 2, BYTES_OUT = 3;
+    private static final int COUNTERS = 4;
+    /**
+     * Size histogram buckets: up to 8 bytes, up to 16 bytes... and the last one for anything bigger
+     */
+    public static final int SIZE_BUCKETS = 13;
+    private static final int SMALLEST_BUCKET_BITS = 3;
+
+    private final String[] types;
+    private final AtomicLongArray counters;
+    private final AtomicLongArray sizesIn, sizesOut;
+    private final ConcurrentMap<String, AtomicLongArray> players = new ConcurrentHashMap<String, AtomicLongArray>();
+
+    PacketStats(String[] types) {
+        this.types = types;
+        counters = new AtomicLongArray(types.length * COUNTERS);
+        sizesIn = new AtomicLongArray(types.length * SIZE_BUCKETS);
+        sizesOut = new AtomicLongArray(types.length * SIZE_BUCKETS);
+    }
+
+    /**
+     * @param player the sending player, or null when received from the server
+     */
+    void recordIn(int discriminator, int size, EntityPlayer player) {
+        record(discriminator, size, player, PACKETS_IN, sizesIn);
+    }
+
+    /**
+     * @param player the receiving player, or null when sent to the server
+     */
+    void recordOut(int discriminator, int size, EntityPlayer player) {
+        record(discriminator, size, player, PACKETS_OUT, sizesOut);
+    }
+
+    private void record(int discriminator, int size, EntityPlayer player, int counter, AtomicLongArray sizes) {
+        counters.incrementAndGet(discriminator * COUNTERS + counter);
+        counters.addAndGet(discriminator * COUNTERS + counter + 1, size);
+        sizes.incrementAndGet(discriminator * SIZE_BUCKETS + getSizeBucket(size));
+        if (player != null) {
+            AtomicLongArray playerCounters = players.get(player.getCommandSenderName());
+            if (playerCounters == null) {
+                AtomicLongArray created = new AtomicLongArray(COUNTERS);
+                playerCounters = players.putIfAbsent(player.getCommandSenderName(), created);
+                if (playerCounters == null) {
+                    playerCounters = created;
+                }
+            }
+            playerCounters.incrementAndGet(counter);
+            playerCounters.addAndGet(counter + 1, size);
+        }
+    }
+
+    /**
+     * @return the histogram bucket for a payload size
+     */
+    public static int getSizeBucket(int size) {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1) - SMALLEST_BUCKET_BITS;
+        return Math.min(Math.max(bits, 0), SIZE_BUCKETS - 1);
+    }
+
+    /**
+     * @return the biggest size counted in the given histogram bucket, or -1 for the last one
+     */
+    public static int getBucketLimit(int bucket) {
+        return bucket < SIZE_BUCKETS - 1 ? 1 << (bucket + SMALLEST_BUCKET_BITS) : -1;
+    }
+
+    public int getTypeCount() {
+        return types.length;
+    }
+
+    public String getTypeName(int discriminator) {
+        return types[discriminator];
+    }
+
+    /**
+     * @param counter one of {@link #PACKETS_IN}, {@link #BYTES_IN}, {@link #PACKETS_OUT}, {@link #BYTES_OUT}
+     */
+    public long get(int discriminator, int counter) {
+        return counters.get(discriminator * COUNTERS + counter);
+    }
+
+    /**
+     * @param in true for the received packets, false for the sent ones
+     */
+    public long getSizeCount(int discriminator, int bucket, boolean in) {
+        return (in ? sizesIn : sizesOut).get(discriminator * SIZE_BUCKETS + bucket);
+    }
+
+    /**
+     * @return the names of the players with the most bytes exchanged, most first
+     */
+    public List<String> getTopPlayers(int limit) {
+        // Read the totals once, as network threads keep counting while sorting
+        List<Pair<String, Long>> totals = new ArrayList<Pair<String, Long>>(players.size());
+        for (Map.Entry<String, AtomicLongArray> entry : players.entrySet()) {
+            totals.add(Pair.of(entry.getKey(), entry.getValue().get(BYTES_IN) + entry.getValue().get(BYTES_OUT)));
+        }
+        Collections.sort(totals, new Comparator<Pair<String, Long>>() {
+
+            @Override
+            public int compare(Pair<String, Long> first, Pair<String, Long> second) {
+                return second.getRight().compareTo(first.getRight());
+            }
+        });
+        List<String> names = new ArrayList<String>(Math.min(limit, totals.size()));
+        for (int i = 0; i < totals.size() && i < limit; i++) {
+            names.add(totals.get(i).getLeft());
+        }
+        return names;
+    }
+
+    /**
+     * @param counter one of {@link #PACKETS_IN}, {@link #BYTES_IN}, {@link #PACKETS_OUT}, {@link #BYTES_OUT}
+     * @return the counter for the given player, 0 if unknown
+     */
+    public long getPlayer(String name, int counter) {
+        AtomicLongArray playerCounters = players.get(name);
+        return playerCounters != null ? playerCounters.get(counter) : 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+        for (int i = 0; i < sizesIn.length(); i++) {
+            sizesIn.set(i, 0);
+            sizesOut.set(i, 0);
+        }
+        players.clear();
+    }
+
+    /**
+     * Write all counters as comma separated values, one row by packet type and direction, then one row by player
+     *
+     * @param side written in the first column, to tell apart the stats of both sides in one file
+     */
+    public void writeCsv(Writer out, String side) throws IOException {
+        for (int type = 0; type < types.length; type++) {
+            writeCsvRow(out, side, types[type], "in", get(type, PACKETS_IN), get(type, BYTES_IN));
+            for (int bucket = 0; bucket < SIZE_BUCKETS; bucket++) {
+                out.write("," + getSizeCount(type, bucket, true));
+            }
+            out.write("\n");
+            writeCsvRow(out, side, types[type], "out", get(type, PACKETS_OUT), get(type, BYTES_OUT));
+            for (int bucket = 0; bucket < SIZE_BUCKETS; bucket++) {
+                out.write("," + getSizeCount(type, bucket, false));
+            }
+            out.write("\n");
+        }
+        for (Map.Entry<String, AtomicLongArray> entry : players.entrySet()) {
+            String player = "player:" + entry.getKey();
+            writeCsvRow(out, side, player, "in", entry.getValue().get(PACKETS_IN), entry.getValue().get(BYTES_IN));
+            out.write("\n");
+            writeCsvRow(out, side, player, "out", entry.getValue().get(PACKETS_OUT), entry.getValue().get(BYTES_OUT));
+            out.write("\n");
+        }
+    }
+
+    /**
+     * Write the header matching the rows of {@link #writeCsv(Writer, String)}
+     */
+    public static void writeCsvHeader(Writer out) throws IOException {
+        out.write("side,subject,direction,packets,bytes");
+        for (int bucket = 0; bucket < SIZE_BUCKETS; bucket++) {
+            int limit = getBucketLimit(bucket);
+            out.write(limit < 0 ? ",size_over_" + getBucketLimit(bucket - 1) : ",size_upto_" + limit);
+        }
+        out.write("\n");
+    }
+
+    private static void writeCsvRow(Writer out, String side, String subject, String direction, long packets,
+            long bytes) throws IOException {
+        out.write(side + "," + subject + "," + direction + "," + packets + "," + bytes);
+    }
+}
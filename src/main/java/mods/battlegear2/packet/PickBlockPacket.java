@@ -13,7 +13,6 @@ import mods.battlegear2.api.core.IInventoryPlayerBattle;
 
 public final class PickBlockPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|CreaPick";
     private ItemStack stack;
     private int slot;
 
@@ -24,11 +23,6 @@ public final class PickBlockPacket extends AbstractMBPacket {
         this.slot = slot;
     }
 
-    @Override
-    public String getChannel() {
-        return packetName;
-    }
-
     @Override
     public void write(ByteBuf out) {
         out.writeInt(slot);
@@ -36,15 +30,14 @@ public final class PickBlockPacket extends AbstractMBPacket {
     }
 
     @Override
-    public void process(ByteBuf inputStream, EntityPlayer player) {
+    public void read(ByteBuf inputStream, EntityPlayer player) {
+        slot = inputStream.readInt();
+        stack = ByteBufUtils.readItemStack(inputStream);
+    }
+
+    @Override
+    public void handle(EntityPlayer player) {
         if (player != null && !((IBattlePlayer) player).battlegear2$isBattlemode()) {
-            try {
-                slot = inputStream.readInt();
-                stack = ByteBufUtils.readItemStack(inputStream);
-            } catch (Exception e) {
-                e.printStackTrace();
-                return;
-            }
             if (IInventoryPlayerBattle.isValidSwitch(slot)) {
                 player.inventory.currentItem = slot;
                 if (player.capabilities.isCreativeMode
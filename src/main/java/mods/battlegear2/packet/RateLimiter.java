@@ -0,0 +1,119 @@
+package mods.battlegear2.packet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import net.minecraft.entity.player.EntityPlayer;
+
+import mods.battlegear2.Battlegear;
+
+/**
+ * Token buckets for the packets sent by clients, one for each player and limited packet type. A bucket holds up to one
+ * second of budget, refilled continuously, and each packet takes a token or is dropped. The buckets of a player are kept
+ * by its {@link Sender}, so players don't share a lock.
+ */
+final class RateLimiter {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * Packets allowed per second, by discriminator, 0 for no limit, -1 to refuse all
+     */
+    private final int[] rates;
+    private final String[] names;
+    private final AtomicLongArray dropped;
+
+    RateLimiter(int types) {
+        rates = new int[types];
+        names = new String[types];
+        dropped = new AtomicLongArray(types);
+    }
+
+    void setRate(int discriminator, String name, int perSecond) {
+        names[discriminator] = name;
+        rates[discriminator] = Math.max(perSecond, 0);
+    }
+
+    /**
+     * Drop every packet of the given type, for those clients should never send
+     */
+    void refuse(int discriminator, String name) {
+        names[discriminator] = name;
+        rates[discriminator] = -1;
+    }
+
+    /**
+     * @return the number of packet types, for the size of {@link Sender#buckets}
+     */
+    int getTypeCount() {
+        return rates.length;
+    }
+
+    /**
+     * @param sender the connection of the player, holding its buckets
+     * @return true if the packet can be processed, false if it should be dropped
+     */
+    boolean tryAcquire(EntityPlayer player, Sender sender, int discriminator) {
+        int rate = rates[discriminator];
+        if (rate == 0) {
+            return true;
+        }
+        if (rate < 0) {
+            dropped.incrementAndGet(discriminator);
+            return false;
+        }
+        // Only the network thread of the connection reads this player packets
+        Bucket bucket = sender.buckets[discriminator];
+        if (bucket == null) {
+            bucket = new Bucket(rate);
+            sender.buckets[discriminator] = bucket;
+        }
+        long violations = bucket.acquire(rate);
+        if (violations == 0) {
+            return true;
+        }
+        dropped.incrementAndGet(discriminator);
+        if (violations == 1) {
+            Battlegear.logger.warn(
+                    player.getCommandSenderName() + " sent more than " + rate + " " + names[discriminator]
+                            + " per second, dropping the excess");
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of packets dropped for the given discriminator, all players included
+     */
+    long getDropped(int discriminator) {
+        return dropped.get(discriminator);
+    }
+
+    static final class Bucket {
+
+        /**
+         * Available tokens, in billionths
+         */
+        private long tokens;
+        private long lastRefill;
+        private long violations;
+
+        Bucket(int rate) {
+            tokens = rate * SECOND;
+            lastRefill = System.nanoTime();
+        }
+
+        /**
+         * @return 0 if a token was taken, else the number of packets this bucket refused so far
+         */
+        long acquire(int rate) {
+            long now = System.nanoTime();
+            long capacity = rate * SECOND;
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * rate);
+            lastRefill = now;
+            if (tokens >= SECOND) {
+                tokens -= SECOND;
+                return 0;
+            }
+            return ++violations;
+        }
+    }
+}
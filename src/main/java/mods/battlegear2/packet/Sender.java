@@ -0,0 +1,27 @@
+package mods.battlegear2.packet;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * What the server keeps about a client connection, attached to its network channel. The fields are only used by the
+ * network thread of that connection, except {@link #waiting}.
+ */
+final class Sender {
+
+    /**
+     * The rate limit of each packet type, created on first use
+     */
+    final RateLimiter.Bucket[] buckets;
+    /**
+     * Packets of this connection in the {@link PacketQueue}, also decremented by the game thread
+     */
+    final AtomicInteger waiting = new AtomicInteger();
+    /**
+     * If an empty or unknown packet was logged already, to log only the first one
+     */
+    boolean warnedMalformed;
+
+    Sender(int types) {
+        buckets = new RateLimiter.Bucket[types];
+    }
+}
@@ -13,37 +13,31 @@ import io.netty.buffer.ByteBuf;
 import mods.battlegear2.Battlegear;
 import mods.battlegear2.api.EnchantmentHelper;
 import mods.battlegear2.api.core.IInventoryPlayerBattle;
+import mods.battlegear2.api.core.ItemCapabilities;
 import mods.battlegear2.api.quiver.IArrowContainer2;
 import mods.battlegear2.api.quiver.QuiverArrowRegistry;
 import mods.battlegear2.api.quiver.SwapArrowEvent;
-import mods.battlegear2.api.shield.IShield;
 import mods.battlegear2.enchantments.BaseEnchantment;
 
 public final class SpecialActionPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|Special";
     private EntityPlayer player;
     private Entity entityHit;
 
     @Override
-    public void process(ByteBuf inputStream, EntityPlayer player) {
-        try {
-            this.player = player.worldObj.getPlayerEntityByName(ByteBufUtils.readUTF8String(inputStream));
-            if (inputStream.readBoolean()) {
-                entityHit = player.worldObj.getPlayerEntityByName(ByteBufUtils.readUTF8String(inputStream));
-            } else {
-                entityHit = player.worldObj.getEntityByID(inputStream.readInt());
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
-        }
+    public void read(ByteBuf inputStream, EntityPlayer player) {
+        this.player = readPlayer(inputStream, player.worldObj);
+        int id = ByteBufUtils.readVarInt(inputStream, 5) - 1;
+        entityHit = id >= 0 ? player.worldObj.getEntityByID(id) : null;
+    }
 
+    @Override
+    public void handle(EntityPlayer player) {
         if (this.player != null) {
             if (entityHit instanceof EntityLivingBase) {
                 ItemStack offhand = ((IInventoryPlayerBattle) this.player.inventory)
                         .battlegear2$getCurrentOffhandWeapon();
-                if (offhand != null && offhand.getItem() instanceof IShield) {
+                if (offhand != null && ItemCapabilities.has(offhand.getItem(), ItemCapabilities.SHIELD)) {
                     if (entityHit.canBePushed()) {
                         double d0 = entityHit.posX - this.player.posX;
                         double d1;
@@ -90,22 +84,10 @@ public final class SpecialActionPacket extends AbstractMBPacket {
 
     public SpecialActionPacket() {}
 
-    @Override
-    public String getChannel() {
-        return packetName;
-    }
-
     @Override
     public void write(ByteBuf out) {
-        boolean isPlayer = entityHit instanceof EntityPlayer;
-
-        ByteBufUtils.writeUTF8String(out, player.getCommandSenderName());
-
-        out.writeBoolean(isPlayer);
-        if (isPlayer) {
-            ByteBufUtils.writeUTF8String(out, entityHit.getCommandSenderName());
-        } else {
-            out.writeInt(entityHit != null ? entityHit.getEntityId() : -1);
-        }
+        writePlayer(out, player);
+        // Shifted by one, so no entity hit is written as 0
+        ByteBufUtils.writeVarInt(out, entityHit != null ? entityHit.getEntityId() + 1 : 0, 5);
     }
 }
@@ -1,46 +1,96 @@
 package mods.battlegear2.packet;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 
+import org.apache.commons.lang3.tuple.Pair;
+
 import cpw.mods.fml.common.network.ByteBufUtils;
 import io.netty.buffer.ByteBuf;
+import mods.battlegear2.api.StackHolder;
 import mods.battlegear2.api.weapons.WeaponRegistry;
+import mods.battlegear2.utils.WieldOverrides;
 
 /**
- * Created by Olivier on 25/04/2015.
+ * Created by Olivier on 25/04/2015. Carries {@link WieldOverrides}, either whole or as a delta. The header byte packs
+ * the full flag with the active sensitivities, then each stack is a varint item id and a varint packing its damage, tag
+ * presence, wield and usable bits.
  */
 public class WieldSetPacket extends AbstractMBPacket {
 
-    public static final String packetName = "MB2|WieldSet";
+    private static final WeaponRegistry.Wield[] WIELDS = WeaponRegistry.Wield.values();
 
     public WieldSetPacket() {}
 
-    private ItemStack stack;
-    private String type;
+    private boolean full;
+    private int senses;
+    private Map<StackHolder, Pair<WeaponRegistry.Wield, Boolean>> wielding;
 
-    public WieldSetPacket(ItemStack itemStack, String text) {
-        stack = itemStack;
-        type = text;
+    /**
+     * @param full     if the receiver should forget previous overrides first
+     * @param senses   the active {@link WeaponRegistry.Sensitivity}, as a bit mask of their ordinals
+     * @param wielding the stacks to register
+     */
+    public WieldSetPacket(boolean full, int senses, Map<StackHolder, Pair<WeaponRegistry.Wield, Boolean>> wielding) {
+        this.full = full;
+        this.senses = senses;
+        this.wielding = wielding;
     }
 
     @Override
-    public String getChannel() {
-        return packetName;
+    protected int estimateSize() {
+        return 6 + 8 * wielding.size();
     }
 
     @Override
     public void write(ByteBuf out) {
-        ByteBufUtils.writeUTF8String(out, type);
-        ByteBufUtils.writeItemStack(out, stack);
+        out.writeByte(senses << 1 | (full ? 1 : 0));
+        ByteBufUtils.writeVarInt(out, wielding.size(), 5);
+        for (Map.Entry<StackHolder, Pair<WeaponRegistry.Wield, Boolean>> entry : wielding.entrySet()) {
+            ItemStack stack = entry.getKey().stack;
+            ByteBufUtils.writeVarInt(out, Item.getIdFromItem(stack.getItem()), 5);
+            ByteBufUtils.writeVarInt(
+                    out,
+                    (stack.getItemDamage() & 0xFFFF) << 4 | (stack.hasTagCompound() ? 8 : 0)
+                            | entry.getValue().getLeft().ordinal() << 1
+                            | (entry.getValue().getRight() ? 1 : 0),
+                    5);
+            if (stack.hasTagCompound()) {
+                ByteBufUtils.writeTag(out, stack.getTagCompound());
+            }
+        }
+    }
+
+    @Override
+    public void read(ByteBuf in, EntityPlayer player) {
+        int header = in.readUnsignedByte();
+        full = (header & 1) != 0;
+        senses = header >>> 1;
+        int count = ByteBufUtils.readVarInt(in, 5);
+        wielding = new LinkedHashMap<StackHolder, Pair<WeaponRegistry.Wield, Boolean>>(count * 2);
+        for (int i = 0; i < count; i++) {
+            Item item = Item.getItemById(ByteBufUtils.readVarInt(in, 5));
+            int packed = ByteBufUtils.readVarInt(in, 5);
+            ItemStack stack = item != null ? new ItemStack(item, 1, (short) (packed >>> 4)) : null;
+            if ((packed & 8) != 0) {
+                if (stack != null) stack.setTagCompound(ByteBufUtils.readTag(in));
+                else ByteBufUtils.readTag(in);
+            }
+            int wield = packed >>> 1 & 3;
+            if (stack != null && wield < WIELDS.length) {
+                wielding.put(new StackHolder(stack), Pair.of(WIELDS[wield], (packed & 1) != 0));
+            }
+        }
     }
 
     @Override
-    public void process(ByteBuf in, EntityPlayer player) {
-        type = ByteBufUtils.readUTF8String(in);
-        stack = ByteBufUtils.readItemStack(in);
-        if (stack != null && player.worldObj.isRemote) {
-            WeaponRegistry.Wield.valueOf(type).setUsable(stack);
+    public void handle(EntityPlayer player) {
+        if (player.worldObj.isRemote) {
+            WieldOverrides.apply(full, senses, wielding);
         }
     }
 }
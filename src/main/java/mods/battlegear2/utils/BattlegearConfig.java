@@ -24,6 +24,8 @@ import net.minecraftforge.oredict.ShapedOreRecipe;
 import cpw.mods.fml.common.event.FMLMissingMappingsEvent;
 import cpw.mods.fml.common.registry.GameRegistry;
 import mods.battlegear2.Battlegear;
+import mods.battlegear2.api.core.BattlegearUtils;
+import mods.battlegear2.api.core.WieldClassCache;
 import mods.battlegear2.api.quiver.DispenseQuiverArrow;
 import mods.battlegear2.api.quiver.QuiverArrowRegistry;
 import mods.battlegear2.api.shield.ShieldType;
@@ -56,7 +58,12 @@ public class BattlegearConfig {
     public static boolean alwaysShowBattleBar = false;
     public static CreativeTabs customTab;
     public static Sheath forceSheath = Sheath.HIP;
-    public static int updateRate = 20;
+    public static int updateRate = 20, observerSyncDistance = 32;
+    public static int classificationCacheSize = 2048, packetQueueSize = 128;
+    public static int shieldBlockPacketRate = 20, animationPacketRate = 40, specialActionPacketRate = 10,
+            offhandPlacePacketRate = 40, syncItemPacketRate = 20, pickBlockPacketRate = 20, guiPacketRate = 5,
+            heraldryPacketRate = 2, digestPacketRate = 5;
+    public static int heraldryTextureCacheSize = 256, heraldryUploadsPerFrame = 4;
     public static boolean arrowForceRendered = true, enableSkeletonQuiver = true;
     public static boolean enableGUIKeys = true, enableGuiButtons = true, forceHUD = false;
     public static final String[] itemNames = { "heraldric", "chain", "quiver", "dagger", "waraxe", "mace", "spear",
@@ -79,10 +86,21 @@ public class BattlegearConfig {
     public static String[] disabledItems = new String[0];
     public static String[] disabledRecipies = new String[0];
     public static String[] disabledRenderers = new String[0];
+    public static String[] weaponOreNames = { "craftingToolBlade", "craftingToolAxe" };
 
     public static double[] skeletonArrowSpawnRate = new double[ItemMBArrow.names.length];
     public static int[] quiverBarOffset = new int[2], shieldBarOffset = new int[2], battleBarOffset = new int[4];
 
+    private static int getPacketRate(Configuration config, String name, int rate) {
+        return config.getInt(
+                name + " packet rate",
+                "Server",
+                rate,
+                0,
+                1000,
+                name + " packets a client can send per second, the excess being dropped. 0 for no limit.");
+    }
+
     public static void getConfig(Configuration config) {
         file = config;
 
@@ -97,7 +115,45 @@ public class BattlegearConfig {
                 updateRate,
                 1,
                 20000,
-                "How often packets are sent over the network to update the battle inventory slots. Lower for faster updates, but more packets to deal for each client.");
+                "How often a digest of the battle inventory slots is sent over the network, for clients to check their copy and ask for an update on mismatch. Lower for faster recovery, but more packets to deal for each client.");
+        observerSyncDistance = config.getInt(
+                "Observer sync distance",
+                "Server",
+                observerSyncDistance,
+                0,
+                256,
+                "Players further away only get the held weapons of other players right away, their sheathed weapons being updated at the update packet rate.");
+        classificationCacheSize = config.getInt(
+                "Wield classification cache size",
+                "Server",
+                classificationCacheSize,
+                1,
+                1000000,
+                "How many different stacks can have their wielding properties remembered, instead of being checked again each time they are held.");
+        WieldClassCache.setCapacity(classificationCacheSize);
+        packetQueueSize = config.getInt(
+                "Packet queue size",
+                "Server",
+                packetQueueSize,
+                16,
+                65536,
+                "How many received packets of each player can wait for the next tick before the excess is dropped. On clients, how many packets of the server can wait.");
+        shieldBlockPacketRate = getPacketRate(config, "Shield block", shieldBlockPacketRate);
+        animationPacketRate = getPacketRate(config, "Animation", animationPacketRate);
+        specialActionPacketRate = getPacketRate(config, "Special action", specialActionPacketRate);
+        offhandPlacePacketRate = getPacketRate(config, "Offhand place", offhandPlacePacketRate);
+        syncItemPacketRate = getPacketRate(config, "Sync item", syncItemPacketRate);
+        pickBlockPacketRate = getPacketRate(config, "Pick block", pickBlockPacketRate);
+        guiPacketRate = getPacketRate(config, "GUI", guiPacketRate);
+        heraldryPacketRate = getPacketRate(config, "Heraldry", heraldryPacketRate);
+        digestPacketRate = getPacketRate(config, "Inventory digest", digestPacketRate);
+        weaponOreNames = config.get(
+                Configuration.CATEGORY_GENERAL,
+                "Weapon Ore Names",
+                weaponOreNames,
+                "Ore dictionary names making an item a weapon, allowed in both hands. End a name with * to match every ore name starting with it.")
+                .getStringList();
+        BattlegearUtils.setWeaponOreNames(weaponOreNames);
         config.get("Coremod", "ASM debug Mode", false, "Only use for advanced bug reporting when asked by a dev.")
                 .setRequiresMcRestart(true);
 
@@ -140,6 +196,20 @@ public class BattlegearConfig {
         enableSkeletonQuiver = config.get(category, "Render quiver on skeleton back", enableSkeletonQuiver)
                 .getBoolean();
         forceHUD = config.get(category, "Force screen components rendering", forceHUD).getBoolean();
+        heraldryTextureCacheSize = config.getInt(
+                "Heraldry texture cache size",
+                category,
+                heraldryTextureCacheSize,
+                1,
+                65536,
+                "How many different flags and crests can keep their texture uploaded, the least recently rendered being deleted first.");
+        heraldryUploadsPerFrame = config.getInt(
+                "Heraldry texture uploads per frame",
+                category,
+                heraldryUploadsPerFrame,
+                1,
+                1024,
+                "How many new flag or crest textures can be created in a single frame. Others are delayed to the next frames.");
 
         category = "Skeleton CustomArrow Spawn Rate";
         config.addCustomCategoryComment(
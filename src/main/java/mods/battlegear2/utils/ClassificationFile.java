@@ -0,0 +1,96 @@
+package mods.battlegear2.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+
+import cpw.mods.fml.common.Loader;
+import cpw.mods.fml.common.ModContainer;
+import mods.battlegear2.Battlegear;
+import mods.battlegear2.api.core.ItemCapabilities;
+
+/**
+ * Remembers the item classification found by reflection between runs, in the config directory. The file is only
+ * trusted when it was written with the same mods and versions loaded, and is rewritten otherwise.
+ */
+public final class ClassificationFile {
+
+    private static final int FORMAT = 1;
+    private final File file;
+    private final long modsHash;
+    private Map<String, Boolean> known = Collections.emptyMap();
+
+    public ClassificationFile(File configDir) {
+        this.file = new File(configDir, Battlegear.MODID + "-classification.dat");
+        this.modsHash = hashMods();
+    }
+
+    /**
+     * Provide the results of the previous run to {@link ItemCapabilities}, if they are still valid
+     */
+    public void load() {
+        try {
+            NBTTagCompound compound = CompressedStreamTools.read(file);
+            if (compound == null) {
+                return;
+            }
+            if (compound.getInteger("Format") != FORMAT || compound.getLong("Mods") != modsHash) {
+                Battlegear.logger.info("Mods changed, item classification will be rebuilt");
+                return;
+            }
+            NBTTagCompound classes = compound.getCompoundTag("RightClick");
+            Map<String, Boolean> results = new HashMap<String, Boolean>();
+            for (Object name : classes.func_150296_c()) {
+                results.put((String) name, classes.getBoolean((String) name));
+            }
+            known = results;
+            ItemCapabilities.setKnownRightClickClasses(results);
+        } catch (Exception e) {
+            Battlegear.logger.warn("Couldn't read " + file.getName() + ", item classification will be rebuilt", e);
+        }
+    }
+
+    /**
+     * Write the results of this run, if they differ from the loaded ones
+     */
+    public void save() {
+        Map<String, Boolean> results = ItemCapabilities.getRightClickClasses();
+        if (results.equals(known)) {
+            return;
+        }
+        NBTTagCompound classes = new NBTTagCompound();
+        for (Map.Entry<String, Boolean> entry : results.entrySet()) {
+            classes.setBoolean(entry.getKey(), entry.getValue());
+        }
+        NBTTagCompound compound = new NBTTagCompound();
+        compound.setInteger("Format", FORMAT);
+        compound.setLong("Mods", modsHash);
+        compound.setTag("RightClick", classes);
+        try {
+            CompressedStreamTools.safeWrite(compound, file);
+            known = results;
+        } catch (IOException e) {
+            Battlegear.logger.warn("Couldn't write " + file.getName(), e);
+        }
+    }
+
+    /**
+     * @return a 64 bits FNV-1a hash of the loaded mod ids and versions, in load order
+     */
+    private static long hashMods() {
+        long hash = 0xcbf29ce484222325L;
+        for (ModContainer mod : Loader.instance().getActiveModList()) {
+            for (byte b : (mod.getModId() + '\0' + mod.getVersion() + '\0').getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xFF;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,170 @@
+package mods.battlegear2.utils;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldSavedData;
+import net.minecraftforge.common.util.Constants;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import mods.battlegear2.Battlegear;
+import mods.battlegear2.api.StackHolder;
+import mods.battlegear2.api.weapons.WeaponRegistry;
+import mods.battlegear2.packet.WieldSetPacket;
+
+/**
+ * The {@link WeaponRegistry} settings changed by the /weaponwield command, saved with the overworld. They are applied
+ * when the server starts, sent whole to each joining player, then as deltas to everyone when changed.
+ */
+public final class WieldOverrides extends WorldSavedData {
+
+    public static final String NAME = Battlegear.MODID + "_wield";
+    /**
+     * The {@link WeaponRegistry.Sensitivity} active by default, as a bit mask of their ordinals
+     */
+    public static final int DEFAULT_SENSES = 1 << WeaponRegistry.Sensitivity.ID.ordinal()
+            | 1 << WeaponRegistry.Sensitivity.DAMAGE.ordinal()
+            | 1 << WeaponRegistry.Sensitivity.NBT.ordinal();
+    private final Map<StackHolder, Pair<WeaponRegistry.Wield, Boolean>> wielding = new LinkedHashMap<StackHolder, Pair<WeaponRegistry.Wield, Boolean>>();
+    private int senses = DEFAULT_SENSES;
+
+    public WieldOverrides(String name) {
+        super(name);
+    }
+
+    /**
+     * @return the overrides of the running server
+     */
+    public static WieldOverrides get() {
+        return get(MinecraftServer.getServer().getEntityWorld());
+    }
+
+    public static WieldOverrides get(World world) {
+        WieldOverrides data = (WieldOverrides) world.loadItemData(WieldOverrides.class, NAME);
+        if (data == null) {
+            data = new WieldOverrides(NAME);
+            world.setItemData(NAME, data);
+        }
+        return data;
+    }
+
+    /**
+     * Reset the registry to the mods settings, then apply the saved overrides on top
+     */
+    public void apply() {
+        apply(true, senses, wielding);
+    }
+
+    /**
+     * Change the registry, as done by {@link WieldSetPacket} on the receiving side
+     *
+     * @param full     if previous overrides should be forgotten first
+     * @param senses   the active {@link WeaponRegistry.Sensitivity}, as a bit mask of their ordinals
+     * @param wielding the stacks to register
+     */
+    public static void apply(boolean full, int senses, Map<StackHolder, Pair<WeaponRegistry.Wield, Boolean>> wielding) {
+        Set<WeaponRegistry.Sensitivity> active = EnumSet.noneOf(WeaponRegistry.Sensitivity.class);
+        for (WeaponRegistry.Sensitivity sense : WeaponRegistry.Sensitivity.values()) {
+            if ((senses & 1 << sense.ordinal()) != 0) active.add(sense);
+        }
+        WeaponRegistry.apply(full, active, wielding);
+    }
+
+    /**
+     * Register the stack, save it and send it to every player
+     *
+     * @return true if the registry accepted the stack
+     */
+    public boolean setWield(ItemStack stack, WeaponRegistry.Wield wield, boolean usable) {
+        if (!(usable ? wield.setUsable(stack) : wield.setWeapon(stack))) {
+            return false;
+        }
+        ItemStack copy = stack.copy();
+        copy.stackSize = 1;
+        StackHolder holder = new StackHolder(copy);
+        Pair<WeaponRegistry.Wield, Boolean> value = Pair.of(wield, usable);
+        wielding.remove(holder); // Keep the latest change last, so it is applied last
+        wielding.put(holder, value);
+        markDirty();
+        Battlegear.packetHandler.sendPacketToAll(
+                new WieldSetPacket(false, senses, Collections.singletonMap(holder, value)).generatePacket());
+        return true;
+    }
+
+    /**
+     * Activate or deactivate a comparison, save it and send it to every player
+     *
+     * @return true if the registry changed
+     */
+    public boolean setSensitivity(WeaponRegistry.Sensitivity sense, boolean active) {
+        if (!(active ? WeaponRegistry.addSensitivity(sense) : WeaponRegistry.removeSensitivity(sense))) {
+            return false;
+        }
+        if (active) senses |= 1 << sense.ordinal();
+        else senses &= ~(1 << sense.ordinal());
+        markDirty();
+        Map<StackHolder, Pair<WeaponRegistry.Wield, Boolean>> none = Collections.emptyMap();
+        Battlegear.packetHandler.sendPacketToAll(new WieldSetPacket(false, senses, none).generatePacket());
+        return true;
+    }
+
+    /**
+     * @return the names of the active comparisons
+     */
+    public Set<String> getSensitivities() {
+        Set<String> names = new TreeSet<String>();
+        for (WeaponRegistry.Sensitivity sense : WeaponRegistry.Sensitivity.values()) {
+            if ((senses & 1 << sense.ordinal()) != 0) names.add(sense.name());
+        }
+        return names;
+    }
+
+    /**
+     * Send all the overrides to a joining player
+     */
+    public void sendTo(EntityPlayerMP player) {
+        Battlegear.packetHandler
+                .sendPacketToPlayer(new WieldSetPacket(true, senses, wielding).generatePacket(), player);
+    }
+
+    @Override
+    public void readFromNBT(NBTTagCompound compound) {
+        wielding.clear();
+        senses = compound.hasKey("Senses") ? compound.getInteger("Senses") : DEFAULT_SENSES;
+        NBTTagList list = compound.getTagList("Wield", Constants.NBT.TAG_COMPOUND);
+        for (int i = 0; i < list.tagCount(); i++) {
+            NBTTagCompound tag = list.getCompoundTagAt(i);
+            ItemStack stack = ItemStack.loadItemStackFromNBT(tag);
+            int wield = tag.getByte("Hand");
+            if (stack != null && wield >= 0 && wield < WeaponRegistry.Wield.values().length) {
+                wielding.put(
+                        new StackHolder(stack),
+                        Pair.of(WeaponRegistry.Wield.values()[wield], tag.getBoolean("Usable")));
+            }
+        }
+    }
+
+    @Override
+    public void writeToNBT(NBTTagCompound compound) {
+        compound.setInteger("Senses", senses);
+        NBTTagList list = new NBTTagList();
+        for (Map.Entry<StackHolder, Pair<WeaponRegistry.Wield, Boolean>> entry : wielding.entrySet()) {
+            NBTTagCompound tag = entry.getKey().stack.writeToNBT(new NBTTagCompound());
+            tag.setByte("Hand", (byte) entry.getValue().getLeft().ordinal());
+            tag.setBoolean("Usable", entry.getValue().getRight());
+            list.appendTag(tag);
+        }
+        compound.setTag("Wield", list);
+    }
+}